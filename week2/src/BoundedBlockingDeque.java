@@ -0,0 +1,262 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class BoundedBlockingDeque<Item> implements Iterable<Item> {
+
+    private final Deque<Item> deque = new Deque<>();
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    public BoundedBlockingDeque(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+
+        this.capacity = capacity;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return deque.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - deque.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void putFirst(Item item) throws InterruptedException {
+        checkItem(item);
+
+        lock.lockInterruptibly();
+        try {
+            while (deque.size() == capacity) {
+                notFull.await();
+            }
+            deque.addFirst(item);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void putLast(Item item) throws InterruptedException {
+        checkItem(item);
+
+        lock.lockInterruptibly();
+        try {
+            while (deque.size() == capacity) {
+                notFull.await();
+            }
+            deque.addLast(item);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean offerFirst(Item item, long timeout, TimeUnit unit) throws InterruptedException {
+        checkItem(item);
+
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (deque.size() == capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            deque.addFirst(item);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean offerLast(Item item, long timeout, TimeUnit unit) throws InterruptedException {
+        checkItem(item);
+
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (deque.size() == capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            deque.addLast(item);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Item takeFirst() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (deque.isEmpty()) {
+                notEmpty.await();
+            }
+            notFull.signal();
+            return deque.removeFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Item takeLast() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (deque.isEmpty()) {
+                notEmpty.await();
+            }
+            notFull.signal();
+            return deque.removeLast();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns null if the deque is still empty when the timeout elapses.
+     */
+    public Item pollFirst(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (deque.isEmpty()) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            notFull.signal();
+            return deque.removeFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns null if the deque is still empty when the timeout elapses.
+     */
+    public Item pollLast(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (deque.isEmpty()) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            notFull.signal();
+            return deque.removeLast();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves up to {@code max} items from the front of the deque into
+     * {@code target} under a single lock acquisition, without blocking.
+     *
+     * @return the number of items moved
+     */
+    public int drainTo(Collection<? super Item> target, int max) {
+        if (target == null) {
+            throw new IllegalArgumentException("target is null");
+        }
+
+        lock.lock();
+        try {
+            int n = Math.min(Math.max(max, 0), deque.size());
+            for (int i = 0; i < n; i++) {
+                target.add(deque.removeFirst());
+            }
+            if (n > 0) {
+                notFull.signalAll();
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Iterates over a snapshot taken when the iterator is created.
+     */
+    @Override
+    public Iterator<Item> iterator() {
+        lock.lock();
+        try {
+            List<Item> snapshot = new ArrayList<>(deque.size());
+            for (Item item : deque) {
+                snapshot.add(item);
+            }
+            return Collections.unmodifiableList(snapshot).iterator();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkItem(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("can't add null");
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final BoundedBlockingDeque<Integer> deque = new BoundedBlockingDeque<>(4);
+
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < 10; i++) {
+                        deque.putLast(i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        producer.start();
+
+        List<Integer> batch = new ArrayList<>();
+        int received = 0;
+        while (received < 10) {
+            batch.add(deque.takeFirst());
+            received += 1 + deque.drainTo(batch, 3);
+        }
+        producer.join();
+
+        System.out.println(batch);
+        System.out.println(deque.pollFirst(10, TimeUnit.MILLISECONDS));
+    }
+}
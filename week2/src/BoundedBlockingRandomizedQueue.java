@@ -0,0 +1,199 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class BoundedBlockingRandomizedQueue<Item> implements Iterable<Item> {
+
+    private final RandomizedQueue<Item> queue;
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    public BoundedBlockingRandomizedQueue(int capacity) {
+        this(capacity, new SplittableRandom());
+    }
+
+    public BoundedBlockingRandomizedQueue(int capacity, SplittableRandom random) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+
+        this.capacity = capacity;
+        queue = new RandomizedQueue<>(random);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(Item item) throws InterruptedException {
+        checkItem(item);
+
+        lock.lockInterruptibly();
+        try {
+            while (queue.size() == capacity) {
+                notFull.await();
+            }
+            queue.enqueue(item);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean offer(Item item, long timeout, TimeUnit unit) throws InterruptedException {
+        checkItem(item);
+
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (queue.size() == capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            queue.enqueue(item);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Item take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                notEmpty.await();
+            }
+            notFull.signal();
+            return queue.dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns null if the queue is still empty when the timeout elapses.
+     */
+    public Item poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            notFull.signal();
+            return queue.dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves up to {@code max} uniformly random items into {@code target}
+     * under a single lock acquisition, without blocking.
+     *
+     * @return the number of items moved
+     */
+    public int drainTo(Collection<? super Item> target, int max) {
+        if (target == null) {
+            throw new IllegalArgumentException("target is null");
+        }
+
+        lock.lock();
+        try {
+            int n = Math.min(Math.max(max, 0), queue.size());
+            if (n == 0) {
+                return 0;
+            }
+
+            Item[] batch = (Item[]) new Object[n];
+            queue.dequeue(n, batch);
+            for (Item item : batch) {
+                target.add(item);
+            }
+            notFull.signalAll();
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Iterates in random order over a snapshot taken when the iterator is created.
+     */
+    @Override
+    public Iterator<Item> iterator() {
+        lock.lock();
+        try {
+            return queue.iterator();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkItem(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("can't add null");
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final BoundedBlockingRandomizedQueue<Integer> rq = new BoundedBlockingRandomizedQueue<>(4);
+
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < 10; i++) {
+                        rq.put(i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        producer.start();
+
+        List<Integer> batch = new ArrayList<>();
+        int received = 0;
+        while (received < 10) {
+            batch.add(rq.take());
+            received += 1 + rq.drainTo(batch, 3);
+        }
+        producer.join();
+
+        System.out.println(batch);
+        System.out.println(rq.poll(10, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,215 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A deque stored as a doubly linked list of fixed-size array chunks. Adding or
+ * removing never copies existing items; it at most links in a chunk taken from
+ * a small pool of previously released ones.
+ */
+public class ChunkedDeque<Item> implements Iterable<Item> {
+
+    private static final int CHUNK_SIZE = 256;
+    private static final int MAX_FREE_CHUNKS = 4;
+
+    private Chunk head;
+    private Chunk tail;
+    private int headIndex;  // index of the first item in head
+    private int tailIndex;  // index one past the last item in tail
+    private int size;
+
+    private Chunk free;
+    private int freeCount;
+
+    public ChunkedDeque() {
+        head = new Chunk();
+        tail = head;
+        headIndex = CHUNK_SIZE / 2;
+        tailIndex = CHUNK_SIZE / 2;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void addFirst(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("can't add null");
+        }
+
+        if (headIndex == 0) {
+            Chunk c = obtainChunk();
+            c.next = head;
+            head.prev = c;
+            head = c;
+            headIndex = CHUNK_SIZE;
+        }
+
+        head.items[--headIndex] = item;
+        size++;
+    }
+
+    public void addLast(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("can't add null");
+        }
+
+        if (tailIndex == CHUNK_SIZE) {
+            Chunk c = obtainChunk();
+            c.prev = tail;
+            tail.next = c;
+            tail = c;
+            tailIndex = 0;
+        }
+
+        tail.items[tailIndex++] = item;
+        size++;
+    }
+
+    public Item removeFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        Item removed = (Item) head.items[headIndex];
+        head.items[headIndex++] = null;
+        size--;
+
+        if (size == 0) {
+            recenter();
+        } else if (headIndex == CHUNK_SIZE) {
+            Chunk old = head;
+            head = head.next;
+            head.prev = null;
+            headIndex = 0;
+            releaseChunk(old);
+        }
+
+        return removed;
+    }
+
+    public Item removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        Item removed = (Item) tail.items[--tailIndex];
+        tail.items[tailIndex] = null;
+        size--;
+
+        if (size == 0) {
+            recenter();
+        } else if (tailIndex == 0) {
+            Chunk old = tail;
+            tail = tail.prev;
+            tail.next = null;
+            tailIndex = CHUNK_SIZE;
+            releaseChunk(old);
+        }
+
+        return removed;
+    }
+
+    @Override
+    public Iterator<Item> iterator() {
+        return new ChunkedDequeIterator();
+    }
+
+    /**
+     * Collapses an empty deque back to a single chunk with room on both sides.
+     */
+    private void recenter() {
+        while (head != tail) {
+            Chunk old = head;
+            head = head.next;
+            releaseChunk(old);
+        }
+
+        head.prev = null;
+        head.next = null;
+        headIndex = CHUNK_SIZE / 2;
+        tailIndex = CHUNK_SIZE / 2;
+    }
+
+    private Chunk obtainChunk() {
+        if (free == null) {
+            return new Chunk();
+        }
+
+        Chunk c = free;
+        free = c.next;
+        c.next = null;
+        freeCount--;
+        return c;
+    }
+
+    private void releaseChunk(Chunk c) {
+        if (freeCount == MAX_FREE_CHUNKS) {
+            return;
+        }
+
+        c.prev = null;
+        c.next = free;
+        free = c;
+        freeCount++;
+    }
+
+    private static class Chunk {
+        private final Object[] items = new Object[CHUNK_SIZE];
+        private Chunk prev;
+        private Chunk next;
+    }
+
+    private class ChunkedDequeIterator implements Iterator<Item> {
+        private Chunk chunk = head;
+        private int index = headIndex;
+        private int remaining = size;
+
+        @Override
+        public boolean hasNext() {
+            return remaining != 0;
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            if (index == CHUNK_SIZE) {
+                chunk = chunk.next;
+                index = 0;
+            }
+
+            remaining--;
+            return (Item) chunk.items[index++];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static void main(String[] args) {
+        ChunkedDeque<Integer> deque = new ChunkedDeque<>();
+
+        for (int i = 0; i < 1000; i++) {
+            deque.addFirst(-i);
+            deque.addLast(i);
+        }
+
+        for (int i = 0; i < 995; i++) {
+            deque.removeFirst();
+            deque.removeLast();
+        }
+
+        for (int i : deque) {
+            System.out.print(i + " ");
+        }
+        System.out.println();
+    }
+}
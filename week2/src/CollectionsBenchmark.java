@@ -0,0 +1,338 @@
+/******************************************************************************
+ *  Compilation:  javac -cp ../../lib/algs4.jar *.java
+ *  Execution:    java -cp .:../../lib/algs4.jar CollectionsBenchmark [minExp] [maxExp]
+ *  Dependencies: Deque.java RandomizedQueue.java
+ *
+ *  Measures Deque and RandomizedQueue against ArrayDeque and ArrayList with
+ *  swap-remove for sizes 10^minExp .. 10^maxExp (default 10^3 .. 10^7).
+ *  For every scenario it reports throughput, sampled per-operation latency
+ *  percentiles and the allocation rate of the measuring thread.
+ *
+ *  A scenario whose set-up and run together take more than TIME_LIMIT_MS
+ *  at some size is not run at larger sizes.
+ *
+ ******************************************************************************/
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+public class CollectionsBenchmark {
+
+    private static final long TIME_LIMIT_MS = 10_000;
+    private static final int WARMUP_SIZE = 10_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int SAMPLE_MASK = 15;     // time every 16th operation
+    private static final int MAX_SAMPLES = 1 << 20;
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        int minExp = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int maxExp = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+
+        Scenario[] scenarios = scenarios();
+        for (Scenario s : scenarios) {
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                measure(s, WARMUP_SIZE);
+            }
+        }
+
+        StdOut.printf("%-34s %9s %12s %8s %8s %8s %8s %10s%n",
+                "scenario", "n", "ops/s", "p50 ns", "p90 ns", "p99 ns", "p99.9 ns", "MB/s alloc");
+
+        for (Scenario s : scenarios) {
+            for (int e = minExp; e <= maxExp; e++) {
+                int n = (int) Math.pow(10, e);
+                Result r = measure(s, n);
+                StdOut.printf("%-34s %9d %12.0f %8d %8d %8d %8d %10.1f%n",
+                        s.name, n, r.throughput(), r.percentile(0.50), r.percentile(0.90),
+                        r.percentile(0.99), r.percentile(0.999), r.allocationRate());
+
+                if (r.totalNanos > TIME_LIMIT_MS * 1_000_000L) {
+                    StdOut.printf("%-34s skipping larger sizes%n", s.name);
+                    break;
+                }
+            }
+        }
+
+        if (sink == 42) {
+            StdOut.println();
+        }
+    }
+
+    private static Result measure(Scenario s, int n) {
+        long setUpStart = System.nanoTime();
+        s.prepare(n);
+        s.setUp(n);
+        int ops = s.operations(n);
+
+        long[] samples = new long[Math.min(MAX_SAMPLES, ops / (SAMPLE_MASK + 1) + 1)];
+        int sampled = 0;
+
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            if ((i & SAMPLE_MASK) == 0 && sampled < samples.length) {
+                long t = System.nanoTime();
+                s.operation(i);
+                samples[sampled++] = System.nanoTime() - t;
+            } else {
+                s.operation(i);
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        allocated = allocatedBytes() - allocated;
+
+        long totalNanos = System.nanoTime() - setUpStart;
+
+        return new Result(ops, nanos, totalNanos, Arrays.copyOf(samples, sampled), allocated);
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or 0 if the
+     * JVM does not expose per-thread allocation counters.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static Scenario[] scenarios() {
+        return new Scenario[] {
+            new Scenario("Deque addFirst+removeLast") {
+                private Deque<Integer> d;
+
+                void setUp(int n) { d = new Deque<>(); }
+                int operations(int n) { return 2 * n; }
+                void operation(int i) {
+                    if (i < size) {
+                        d.addFirst(i);
+                    } else {
+                        sink += d.removeLast();
+                    }
+                }
+            },
+            new Scenario("ArrayDeque addFirst+removeLast") {
+                private ArrayDeque<Integer> d;
+
+                void setUp(int n) { d = new ArrayDeque<>(); }
+                int operations(int n) { return 2 * n; }
+                void operation(int i) {
+                    if (i < size) {
+                        d.addFirst(i);
+                    } else {
+                        sink += d.removeLast();
+                    }
+                }
+            },
+            new Scenario("Deque addLast+removeFirst") {
+                private Deque<Integer> d;
+
+                void setUp(int n) { d = new Deque<>(); }
+                int operations(int n) { return 2 * n; }
+                void operation(int i) {
+                    if (i < size) {
+                        d.addLast(i);
+                    } else {
+                        sink += d.removeFirst();
+                    }
+                }
+            },
+            new Scenario("ArrayDeque addLast+removeFirst") {
+                private ArrayDeque<Integer> d;
+
+                void setUp(int n) { d = new ArrayDeque<>(); }
+                int operations(int n) { return 2 * n; }
+                void operation(int i) {
+                    if (i < size) {
+                        d.addLast(i);
+                    } else {
+                        sink += d.removeFirst();
+                    }
+                }
+            },
+            new Scenario("Deque iterate") {
+                private Iterator<Integer> it;
+
+                void setUp(int n) {
+                    Deque<Integer> d = new Deque<>();
+                    for (int i = 0; i < n; i++) {
+                        d.addLast(i);
+                    }
+                    it = d.iterator();
+                }
+                void operation(int i) { sink += it.next(); }
+            },
+            new Scenario("ArrayDeque iterate") {
+                private Iterator<Integer> it;
+
+                void setUp(int n) {
+                    ArrayDeque<Integer> d = new ArrayDeque<>();
+                    for (int i = 0; i < n; i++) {
+                        d.addLast(i);
+                    }
+                    it = d.iterator();
+                }
+                void operation(int i) { sink += it.next(); }
+            },
+            new Scenario("RandomizedQueue iterate") {
+                private Iterator<Integer> it;
+
+                void setUp(int n) {
+                    RandomizedQueue<Integer> q = new RandomizedQueue<>();
+                    for (int i = 0; i < n; i++) {
+                        q.enqueue(i);
+                    }
+                    it = q.iterator();
+                }
+                void operation(int i) { sink += it.next(); }
+            },
+            new Scenario("ArrayList iterate") {
+                private Iterator<Integer> it;
+
+                void setUp(int n) {
+                    ArrayList<Integer> l = new ArrayList<>();
+                    for (int i = 0; i < n; i++) {
+                        l.add(i);
+                    }
+                    it = l.iterator();
+                }
+                void operation(int i) { sink += it.next(); }
+            },
+            new Scenario("RandomizedQueue enqueue") {
+                private RandomizedQueue<Integer> q;
+
+                void setUp(int n) { q = new RandomizedQueue<>(); }
+                void operation(int i) { q.enqueue(i); }
+            },
+            new Scenario("RandomizedQueue sample") {
+                private RandomizedQueue<Integer> q;
+
+                void setUp(int n) {
+                    q = new RandomizedQueue<>();
+                    for (int i = 0; i < n; i++) {
+                        q.enqueue(i);
+                    }
+                }
+                void operation(int i) { sink += q.sample(); }
+            },
+            new Scenario("ArrayList sample") {
+                private ArrayList<Integer> l;
+                private final SplittableRandom random = new SplittableRandom();
+
+                void setUp(int n) {
+                    l = new ArrayList<>();
+                    for (int i = 0; i < n; i++) {
+                        l.add(i);
+                    }
+                }
+                void operation(int i) { sink += l.get(random.nextInt(l.size())); }
+            },
+            new Scenario("RandomizedQueue dequeue") {
+                private RandomizedQueue<Integer> q;
+
+                void setUp(int n) {
+                    q = new RandomizedQueue<>();
+                    for (int i = 0; i < n; i++) {
+                        q.enqueue(i);
+                    }
+                }
+                void operation(int i) { sink += q.dequeue(); }
+            },
+            new Scenario("ArrayList swap-remove dequeue") {
+                private ArrayList<Integer> l;
+                private final SplittableRandom random = new SplittableRandom();
+
+                void setUp(int n) {
+                    l = new ArrayList<>();
+                    for (int i = 0; i < n; i++) {
+                        l.add(i);
+                    }
+                }
+                void operation(int i) {
+                    int r = random.nextInt(l.size());
+                    int last = l.size() - 1;
+                    Integer item = l.get(r);
+                    l.set(r, l.get(last));
+                    l.remove(last);
+                    sink += item;
+                }
+            },
+            new Scenario("Permutation (enqueue n, dequeue n/2)") {
+                private RandomizedQueue<String> q;
+
+                void setUp(int n) { q = new RandomizedQueue<>(); }
+                int operations(int n) { return n + n / 2; }
+                void operation(int i) {
+                    if (i < size) {
+                        q.enqueue("s" + i);
+                    } else {
+                        sink += q.dequeue().length();
+                    }
+                }
+            },
+        };
+    }
+
+    private abstract static class Scenario {
+        private final String name;
+        protected int size;
+
+        Scenario(String name) {
+            this.name = name;
+        }
+
+        abstract void setUp(int n);
+
+        abstract void operation(int i);
+
+        int operations(int n) {
+            return n;
+        }
+
+        final void prepare(int n) {
+            size = n;
+        }
+    }
+
+    private static class Result {
+        private final int ops;
+        private final long nanos;          // the operations alone
+        private final long totalNanos;     // including prepare() and setUp()
+        private final long[] samples;
+        private final long allocated;
+
+        Result(int ops, long nanos, long totalNanos, long[] samples, long allocated) {
+            this.ops = ops;
+            this.nanos = nanos;
+            this.totalNanos = totalNanos;
+            this.samples = samples;
+            this.allocated = allocated;
+            Arrays.sort(samples);
+        }
+
+        double throughput() {
+            return ops * 1e9 / nanos;
+        }
+
+        long percentile(double p) {
+            if (samples.length == 0) {
+                return 0;
+            }
+            return samples[Math.min(samples.length - 1, (int) (p * samples.length))];
+        }
+
+        double allocationRate() {
+            return allocated / 1e6 / (nanos / 1e9);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentRandomizedQueue<Item> implements Iterable<Item> {
+
+    private final Shard<Item>[] shards;
+    private final int mask;
+    private final AtomicInteger size = new AtomicInteger();
+
+    public ConcurrentRandomizedQueue() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ConcurrentRandomizedQueue(int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive");
+        }
+
+        int shardsNum = Integer.highestOneBit(concurrency);
+        if (shardsNum < concurrency) {
+            shardsNum <<= 1;
+        }
+
+        shards = (Shard<Item>[]) new Shard[shardsNum];
+        for (int i = 0; i < shardsNum; i++) {
+            shards[i] = new Shard<>();
+        }
+        mask = shardsNum - 1;
+    }
+
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public void enqueue(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("can't add null");
+        }
+
+        Shard<Item> shard = shards[(int) Thread.currentThread().getId() & mask];
+        synchronized (shard) {
+            shard.add(item);
+        }
+
+        // published only after the item is reachable, so a successful reservation
+        // in dequeue() always has an item to find
+        size.incrementAndGet();
+    }
+
+    public Item dequeue() {
+        int s;
+        do {
+            s = size.get();
+            if (s == 0) {
+                throw new NoSuchElementException();
+            }
+        } while (!size.compareAndSet(s, s - 1));
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            int start = pickShard(random);
+            for (int i = 0; i < shards.length; i++) {
+                Shard<Item> shard = shards[(start + i) & mask];
+                synchronized (shard) {
+                    if (shard.size != 0) {
+                        return shard.removeAt(random.nextInt(shard.size));
+                    }
+                }
+            }
+        }
+    }
+
+    public Item sample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int start = pickShard(random);
+        for (int i = 0; i < shards.length; i++) {
+            Shard<Item> shard = shards[(start + i) & mask];
+            synchronized (shard) {
+                if (shard.size != 0) {
+                    return shard.items[random.nextInt(shard.size)];
+                }
+            }
+        }
+
+        throw new NoSuchElementException();
+    }
+
+    @Override
+    public Iterator<Item> iterator() {
+        Item[] snapshot = (Item[]) new Object[size.get()];
+        int n = 0;
+
+        for (Shard<Item> shard : shards) {
+            synchronized (shard) {
+                if (n + shard.size > snapshot.length) {
+                    Item[] grown = (Item[]) new Object[n + shard.size];
+                    System.arraycopy(snapshot, 0, grown, 0, n);
+                    snapshot = grown;
+                }
+                System.arraycopy(shard.items, 0, snapshot, n, shard.size);
+                n += shard.size;
+            }
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = n - 1; i > 0; i--) {
+            int r = random.nextInt(i + 1);
+            Item tmp = snapshot[i];
+            snapshot[i] = snapshot[r];
+            snapshot[r] = tmp;
+        }
+
+        return new SnapshotIterator(snapshot, n);
+    }
+
+    /**
+     * Picks a shard with probability proportional to its size. Shard sizes are
+     * read without locking, so under concurrent updates the weights are only
+     * approximate; callers fall back to the next shards when the pick is empty.
+     */
+    private int pickShard(ThreadLocalRandom random) {
+        int total = 0;
+        for (Shard<Item> shard : shards) {
+            total += shard.size;
+        }
+
+        if (total <= 0) {
+            return random.nextInt(shards.length);
+        }
+
+        int r = random.nextInt(total);
+        for (int i = 0; i < shards.length; i++) {
+            r -= shards[i].size;
+            if (r < 0) {
+                return i;
+            }
+        }
+
+        return shards.length - 1;
+    }
+
+    private static class Shard<Item> {
+        private Item[] items = (Item[]) new Object[2];
+        private volatile int size;
+
+        private void add(Item item) {
+            if (size == items.length) {
+                Item[] grown = (Item[]) new Object[items.length * 2];
+                System.arraycopy(items, 0, grown, 0, size);
+                items = grown;
+            }
+
+            items[size] = item;
+            size = size + 1;
+        }
+
+        private Item removeAt(int i) {
+            int lastIndex = size - 1;
+            Item removed = items[i];
+            items[i] = items[lastIndex];
+            items[lastIndex] = null;
+            size = lastIndex;
+
+            if (lastIndex > 0 && lastIndex == items.length / 4) {
+                Item[] shrunk = (Item[]) new Object[items.length / 2];
+                System.arraycopy(items, 0, shrunk, 0, lastIndex);
+                items = shrunk;
+            }
+
+            return removed;
+        }
+    }
+
+    private class SnapshotIterator implements Iterator<Item> {
+        private final Item[] items;
+        private final int n;
+        private int cur;
+
+        public SnapshotIterator(Item[] items, int n) {
+            this.items = items;
+            this.n = n;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cur < n;
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return items[cur++];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final ConcurrentRandomizedQueue<Integer> rq = new ConcurrentRandomizedQueue<>();
+        Thread[] producers = new Thread[4];
+
+        for (int t = 0; t < producers.length; t++) {
+            final int base = t * 1000;
+            producers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        rq.enqueue(base + i);
+                    }
+                }
+            });
+            producers[t].start();
+        }
+
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        System.out.println(rq.size());
+        System.out.println(rq.sample());
+        System.out.println(rq.dequeue());
+        System.out.println(rq.size());
+    }
+}
@@ -1,5 +1,10 @@
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Deque<Item> implements Iterable<Item> {
 
@@ -99,6 +104,19 @@ public class Deque<Item> implements Iterable<Item> {
         return new DequeIterator();
     }
 
+    @Override
+    public Spliterator<Item> spliterator() {
+        return new DequeSpliterator();
+    }
+
+    public Stream<Item> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<Item> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
     private class Node {
         private final Item val;
         private Node next;
@@ -134,6 +152,82 @@ public class Deque<Item> implements Iterable<Item> {
         }
     }
 
+    /**
+     * Splits by copying a prefix of the node chain into an array, which the
+     * stream framework can then split evenly. Batches grow by BATCH_UNIT on
+     * every split so that a long chain is handed out in a few large pieces.
+     */
+    private class DequeSpliterator implements Spliterator<Item> {
+        private static final int BATCH_UNIT = 1 << 10;
+        private static final int MAX_BATCH = 1 << 25;
+
+        private Node current = first;
+        private int remaining = size;
+        private int batch;
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Item> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+
+            if (remaining == 0) {
+                return false;
+            }
+
+            Item i = current.val;
+            current = current.next;
+            remaining--;
+            action.accept(i);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Item> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+
+            Node n = current;
+            int r = remaining;
+            current = null;
+            remaining = 0;
+
+            while (r-- > 0) {
+                action.accept(n.val);
+                n = n.next;
+            }
+        }
+
+        @Override
+        public Spliterator<Item> trySplit() {
+            if (remaining <= 1) {
+                return null;
+            }
+
+            int n = Math.min(Math.min(batch + BATCH_UNIT, MAX_BATCH), remaining - 1);
+            Object[] prefix = new Object[n];
+            for (int i = 0; i < n; i++) {
+                prefix[i] = current.val;
+                current = current.next;
+            }
+
+            batch = n;
+            remaining -= n;
+            return Spliterators.spliterator(prefix, 0, n, characteristics());
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+        }
+    }
+
     public static void main(String[] args) {
         Deque<String> deque = new Deque<>();
 
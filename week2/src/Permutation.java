@@ -7,7 +7,9 @@ public class Permutation {
 
     public static void main(String[] args) {
         int k = Integer.parseInt(args[0]);
-        RandomizedQueue<String> queue = new RandomizedQueue<>();
+        RandomizedQueue<String> queue = args.length > 1
+                ? new RandomizedQueue<String>(Long.parseLong(args[1]))
+                : new RandomizedQueue<String>();
 
         while (!StdIn.isEmpty()) {
             queue.enqueue(StdIn.readString());
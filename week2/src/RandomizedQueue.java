@@ -1,19 +1,47 @@
-import edu.princeton.cs.algs4.StdRandom;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class RandomizedQueue<Item> implements Iterable<Item> {
 
+    private final SplittableRandom random;
     private Item[] q;
     private int size;
-    private int first;
-    private int last;
 
     public RandomizedQueue() {
+        this(new SplittableRandom());
+    }
+
+    public RandomizedQueue(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    public RandomizedQueue(SplittableRandom random) {
+        if (random == null) {
+            throw new IllegalArgumentException("random source is null");
+        }
+
+        this.random = random;
         q = (Item[]) new Object[2];
     }
 
+    /**
+     * Returns a new empty queue whose random source is split off this one's,
+     * so queues handed to other threads draw from independent streams.
+     */
+    public RandomizedQueue<Item> split() {
+        return new RandomizedQueue<>(random.split());
+    }
+
     public boolean isEmpty() {
         return size == 0;
     }
@@ -27,21 +55,41 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
             throw new IllegalArgumentException();
         }
 
-        if (size == q.length || last + 1 == q.length) {
-            resize(size  * 2);
+        if (size == q.length) {
+            resize(size * 2);
         }
 
-        if (size == 0) {
-            q[last] = i;
-        } else {
-            q[++last] = i;
+        q[size++] = i;
+    }
+
+    public void enqueueAll(Item[] items) {
+        if (items == null) {
+            throw new IllegalArgumentException();
+        }
+        for (Item i : items) {
+            if (i == null) {
+                throw new IllegalArgumentException();
+            }
+        }
+
+        ensureCapacity(size + items.length);
+        System.arraycopy(items, 0, q, size, items.length);
+        size += items.length;
+    }
+
+    public void enqueueAll(Iterable<? extends Item> items) {
+        if (items == null) {
+            throw new IllegalArgumentException();
         }
 
-        if (size > 1) {
-            StdRandom.shuffle(q, first, last);
+        if (items instanceof Collection) {
+            enqueueAll((Item[]) ((Collection<? extends Item>) items).toArray());
+            return;
         }
 
-        size++;
+        for (Item i : items) {
+            enqueue(i);
+        }
     }
 
     public Item dequeue() {
@@ -49,24 +97,41 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
             throw new NoSuchElementException();
         }
 
-        if (size == q.length / 4) {
+        int r = random.nextInt(size);
+        Item i = q[r];
+        q[r] = q[--size];
+        q[size] = null;
+
+        if (size > 0 && size == q.length / 4) {
             resize(q.length / 2);
         }
 
-        Item i = q[first];
-        size--;
-        if (size == 0) {
-            first = 0;
-            last = 0;
-        } else {
-            q[first++] = null;
+        return i;
+    }
+
+    /**
+     * Removes k uniformly random items into out[0..k), each by picking a
+     * random slot and filling it with the last item, as dequeue() does, but
+     * shrinking the array at most once at the end.
+     */
+    public void dequeue(int k, Item[] out) {
+        if (out == null || k < 0 || k > out.length) {
+            throw new IllegalArgumentException();
+        }
+        if (k > size) {
+            throw new NoSuchElementException();
         }
 
-        if (size > 1) {
-            StdRandom.shuffle(q, first, last);
+        for (int j = 0; j < k; j++) {
+            int r = random.nextInt(size);
+            out[j] = q[r];
+            q[r] = q[--size];
+            q[size] = null;
         }
 
-        return i;
+        if (size > 0 && size <= q.length / 4) {
+            resize(Math.max(2, size * 2));
+        }
     }
 
     public Item sample() {
@@ -74,43 +139,53 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
             throw new NoSuchElementException();
         }
 
-        return q[StdRandom.uniform(first, last + 1)];
+        return q[random.nextInt(size)];
     }
 
     @Override
     public Iterator<Item> iterator() {
-        Item[] iterable = copyQueue(size);
-        StdRandom.shuffle(iterable);
+        Item[] iterable = Arrays.copyOf(q, size);
+        shuffle(iterable, 0, iterable.length);
         return new RandomizedQueueIterator(iterable);
     }
 
-    private void resize(int newSize) {
-        Item[] nq = (Item[]) new Object[newSize];
-        int i = 0;
-
-        for (Item item : q) {
-            if (item != null) {
-                nq[i++] = item;
-            }
-        }
+    /**
+     * Returns a spliterator over a shuffled snapshot of the queue, so streams
+     * see the items in random order just as iterator() does. It splits on
+     * block boundaries, which keeps parallel streams evenly balanced.
+     */
+    @Override
+    public Spliterator<Item> spliterator() {
+        Item[] snapshot = Arrays.copyOf(q, size);
+        shuffle(snapshot, 0, snapshot.length);
+        return new BlockSpliterator(snapshot, 0, snapshot.length);
+    }
 
-        first = 0;
-        last = i - 1;
+    public Stream<Item> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
 
-        q = nq;
+    public Stream<Item> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
     }
 
-    private Item[] copyQueue(int newSize) {
-        Item[] nq = (Item[]) new Object[newSize];
-        int i = 0;
+    private void shuffle(Item[] a, int lo, int hi) {
+        for (int i = lo; i < hi - 1; i++) {
+            int r = random.nextInt(i, hi);
+            Item tmp = a[i];
+            a[i] = a[r];
+            a[r] = tmp;
+        }
+    }
 
-        for (Item item : q) {
-            if (item != null) {
-                nq[i++] = item;
-            }
+    private void ensureCapacity(int capacity) {
+        if (capacity > q.length) {
+            resize(Math.max(capacity, q.length * 2));
         }
+    }
 
-        return nq;
+    private void resize(int newSize) {
+        q = Arrays.copyOf(q, newSize);
     }
 
     private class RandomizedQueueIterator implements Iterator {
@@ -142,6 +217,68 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         }
     }
 
+    private class BlockSpliterator implements Spliterator<Item> {
+        private static final int BLOCK = 1 << 10;
+
+        private final Item[] items;
+        private int lo;         // next item to hand out
+        private final int hi;
+
+        public BlockSpliterator(Item[] items, int lo, int hi) {
+            this.items = items;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Item> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+
+            if (lo == hi) {
+                return false;
+            }
+
+            action.accept(items[lo++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Item> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+
+            while (lo < hi) {
+                action.accept(items[lo++]);
+            }
+        }
+
+        @Override
+        public Spliterator<Item> trySplit() {
+            int blocks = (hi - lo) / BLOCK;
+            if (blocks < 2) {
+                return null;
+            }
+
+            int mid = lo + (blocks >>> 1) * BLOCK;
+            Spliterator<Item> prefix = new BlockSpliterator(items, lo, mid);
+            lo = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return hi - lo;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+        }
+    }
+
     public static void main(String[] args) {
         RandomizedQueue<Integer> rq = new RandomizedQueue<>();
 
@@ -152,6 +289,18 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         System.out.println(rq.isEmpty());
         System.out.println(rq.dequeue());
 
-
+        // streams must be as random as iterator(): 20 items come back in
+        // insertion order with probability 1 / 20!
+        RandomizedQueue<Integer> numbers = new RandomizedQueue<>();
+        List<Integer> inserted = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            numbers.enqueue(i);
+            inserted.add(i);
+        }
+        List<Integer> streamed = numbers.stream().collect(Collectors.toList());
+        System.out.println(streamed);
+        if (streamed.equals(inserted)) {
+            throw new IllegalStateException("stream() returned the items in insertion order");
+        }
     }
 }
@@ -0,0 +1,405 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A deque that keeps at most {@code bufferCapacity} items in memory at each end
+ * and spills the middle to disk. Every segment holds {@code bufferCapacity / 2}
+ * items and is written once, then read back whole when one of the in-memory
+ * ends runs dry.
+ *
+ * Segments are appended to spill files of up to FILE_BYTES each and are
+ * tracked by offset. Only the file being appended to stays open; the others
+ * are opened just for a read. So the deque holds at most two descriptors
+ * however large it grows. A file is deleted once none of its segments is
+ * live, and the file being appended to is truncated and reused instead.
+ */
+public class SpillingDeque<Item> implements Iterable<Item>, Closeable {
+
+    private static final long FILE_BYTES = 64L << 20;
+
+    private final Serializer<Item> serializer;
+    private final int bufferCapacity;
+    private final Path directory;
+
+    private final ArrayDeque<Item> head = new ArrayDeque<>();
+    private final ArrayDeque<Item> tail = new ArrayDeque<>();
+    private final ArrayDeque<Segment> middle = new ArrayDeque<>();
+    private final List<SpillFile> files = new ArrayList<>();
+    private SpillFile appending;
+    private int size;
+
+    public SpillingDeque(Serializer<Item> serializer, int bufferCapacity) {
+        this(serializer, bufferCapacity, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    public SpillingDeque(Serializer<Item> serializer, int bufferCapacity, Path directory) {
+        if (serializer == null || directory == null) {
+            throw new IllegalArgumentException("null argument");
+        }
+        if (bufferCapacity < 2) {
+            throw new IllegalArgumentException("buffer capacity must be at least 2");
+        }
+
+        this.serializer = serializer;
+        this.bufferCapacity = bufferCapacity;
+        this.directory = directory;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void addFirst(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("can't add null");
+        }
+
+        if (head.size() == bufferCapacity) {
+            // the innermost half of the head is the part adjacent to the middle
+            Object[] batch = new Object[bufferCapacity / 2];
+            for (int i = batch.length - 1; i >= 0; i--) {
+                batch[i] = head.pollLast();
+            }
+            middle.addFirst(spill(batch));
+        }
+
+        head.addFirst(item);
+        size++;
+    }
+
+    public void addLast(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("can't add null");
+        }
+
+        if (tail.size() == bufferCapacity) {
+            Object[] batch = new Object[bufferCapacity / 2];
+            for (int i = 0; i < batch.length; i++) {
+                batch[i] = tail.pollFirst();
+            }
+            middle.addLast(spill(batch));
+        }
+
+        tail.addLast(item);
+        size++;
+    }
+
+    public Item removeFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        if (head.isEmpty() && !middle.isEmpty()) {
+            load(middle.pollFirst(), head);
+        }
+
+        size--;
+        return head.isEmpty() ? tail.pollFirst() : head.pollFirst();
+    }
+
+    public Item removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        if (tail.isEmpty() && !middle.isEmpty()) {
+            load(middle.pollLast(), tail);
+        }
+
+        size--;
+        return tail.isEmpty() ? head.pollLast() : tail.pollLast();
+    }
+
+    @Override
+    public Iterator<Item> iterator() {
+        return new SpillingDequeIterator();
+    }
+
+    /**
+     * Deletes all segment files. The deque must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        for (SpillFile f : files) {
+            f.delete();
+        }
+
+        files.clear();
+        appending = null;
+        middle.clear();
+        head.clear();
+        tail.clear();
+        size = 0;
+    }
+
+    private Segment spill(Object[] batch) {
+        byte[][] encoded = new byte[batch.length][];
+        long bytes = 0;
+
+        for (int i = 0; i < batch.length; i++) {
+            encoded[i] = serializer.serialize((Item) batch[i]);
+            bytes += Integer.BYTES + encoded[i].length;
+        }
+
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("segment too large: " + bytes + " bytes");
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate((int) bytes);
+        for (byte[] record : encoded) {
+            buf.putInt(record.length);
+            buf.put(record);
+        }
+        buf.flip();
+
+        if (appending != null && appending.length + bytes > FILE_BYTES && appending.length > 0) {
+            // full: it stays until its last segment is loaded, but closed
+            appending.closeChannel();
+            appending = null;
+        }
+        if (appending == null) {
+            appending = new SpillFile(directory);
+            files.add(appending);
+        }
+
+        long offset = appending.append(buf);
+        return new Segment(appending, offset, (int) bytes, batch.length);
+    }
+
+    private void load(Segment segment, ArrayDeque<Item> target) {
+        segment.read(serializer, target);
+
+        SpillFile file = segment.file;
+        if (--file.liveSegments == 0) {
+            if (file == appending) {
+                file.truncate();
+            } else {
+                file.delete();
+                files.remove(file);
+            }
+        }
+    }
+
+    public interface Serializer<Item> {
+        byte[] serialize(Item item);
+
+        Item deserialize(byte[] bytes);
+    }
+
+    public static Serializer<String> strings() {
+        return new Serializer<String>() {
+            @Override
+            public byte[] serialize(String item) {
+                return item.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String deserialize(byte[] bytes) {
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    private static class SpillFile {
+        private final Path file;
+        private FileChannel channel;    // open only while this file is appended to
+        private long length;
+        private int liveSegments;
+
+        public SpillFile(Path directory) {
+            try {
+                file = Files.createTempFile(directory, "deque", ".seg");
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private long append(ByteBuffer buf) {
+            long offset = length;
+            try {
+                long position = offset;
+                while (buf.hasRemaining()) {
+                    position += channel.write(buf, position);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            length += buf.limit();
+            liveSegments++;
+            return offset;
+        }
+
+        private ByteBuffer read(long offset, int bytes) {
+            ByteBuffer buf = ByteBuffer.allocate(bytes);
+            try {
+                if (channel != null) {
+                    readFully(channel, buf, offset);
+                } else {
+                    try (FileChannel c = FileChannel.open(file, StandardOpenOption.READ)) {
+                        readFully(c, buf, offset);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            buf.flip();
+            return buf;
+        }
+
+        private static void readFully(FileChannel c, ByteBuffer buf, long position) throws IOException {
+            while (buf.hasRemaining()) {
+                int n = c.read(buf, position);
+                if (n < 0) {
+                    throw new IOException("spill file ended early");
+                }
+                position += n;
+            }
+        }
+
+        private void truncate() {
+            try {
+                channel.truncate(0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            length = 0;
+        }
+
+        private void closeChannel() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            channel = null;
+        }
+
+        private void delete() {
+            try {
+                if (channel != null) {
+                    closeChannel();
+                }
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class Segment {
+        private final SpillFile file;
+        private final long offset;
+        private final int bytes;
+        private final int count;
+
+        public Segment(SpillFile file, long offset, int bytes, int count) {
+            this.file = file;
+            this.offset = offset;
+            this.bytes = bytes;
+            this.count = count;
+        }
+
+        private <Item> void read(Serializer<Item> serializer, ArrayDeque<Item> target) {
+            ByteBuffer buf = file.read(offset, bytes);
+            for (int i = 0; i < count; i++) {
+                byte[] record = new byte[buf.getInt()];
+                buf.get(record);
+                target.addLast(serializer.deserialize(record));
+            }
+        }
+    }
+
+    private class SpillingDequeIterator implements Iterator<Item> {
+        private final Iterator<Segment> segments = middle.iterator();
+        private Iterator<Item> current = head.iterator();
+        private boolean tailReached;
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (segments.hasNext()) {
+                    ArrayDeque<Item> items = new ArrayDeque<>(bufferCapacity / 2);
+                    segments.next().read(serializer, items);
+                    current = items.iterator();
+                } else if (!tailReached) {
+                    tailReached = true;
+                    current = tail.iterator();
+                } else {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return current.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static void main(String[] args) {
+        try (SpillingDeque<String> deque = new SpillingDeque<>(strings(), 4)) {
+            for (int i = 0; i < 10; i++) {
+                deque.addLast("l" + i);
+                deque.addFirst("f" + i);
+            }
+
+            deque.removeFirst();
+            deque.removeLast();
+
+            for (String s : deque) {
+                System.out.print(s + " ");
+            }
+            System.out.println();
+
+            while (!deque.isEmpty()) {
+                System.out.print(deque.removeLast() + " ");
+            }
+            System.out.println();
+        }
+
+        // far more segments than a process may have open files
+        int n = 2_000_000;
+        try (SpillingDeque<String> deque = new SpillingDeque<>(strings(), 64)) {
+            for (int i = 0; i < n; i++) {
+                deque.addLast(Integer.toString(i));
+            }
+            for (int i = 0; i < n; i++) {
+                if (!deque.removeFirst().equals(Integer.toString(i))) {
+                    throw new IllegalStateException("wrong item at " + i);
+                }
+            }
+            System.out.println("spilled and drained " + n + " items in " + n / 32 + " segments");
+        }
+    }
+}
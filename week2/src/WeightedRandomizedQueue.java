@@ -0,0 +1,412 @@
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * A randomized queue whose sample() and dequeue() pick an item with probability
+ * proportional to its weight. Weights are kept in a Fenwick tree over a flat
+ * double[], so enqueue, sample, dequeue and weight updates are all O(log n).
+ *
+ * enqueue() returns a handle to the item's slot. The handle stays valid until
+ * the item leaves the queue, after which the slot may be reused.
+ *
+ * The tree is updated with differences, which can cancel catastrophically
+ * when weights of very different sizes come and go. The live total is also
+ * kept as a compensated sum, and the tree is rebuilt from the weights in
+ * O(n) whenever its own total drifts away from it.
+ */
+public class WeightedRandomizedQueue<Item> {
+
+    private static final double MAX_DRIFT = 1e-9;  // relative tree error that forces a rebuild
+    private static final int MAX_REDRAWS = 16;
+
+    private final SplittableRandom random;
+    private Item[] items;
+    private double[] weights;
+    private double[] tree;      // 1-based Fenwick tree over weights
+    private int[] freeSlots;
+    private int freeCount;
+    private int top;            // slots [0, top) have been handed out
+    private int size;
+    private double liveWeight;      // Neumaier sum of the live weights
+    private double compensation;    // and the low-order bits it lost
+
+    public WeightedRandomizedQueue() {
+        this(new SplittableRandom());
+    }
+
+    public WeightedRandomizedQueue(SplittableRandom random) {
+        if (random == null) {
+            throw new IllegalArgumentException("random source is null");
+        }
+
+        this.random = random;
+        allocate(2);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double totalWeight() {
+        return liveWeight + compensation;
+    }
+
+    public int enqueue(Item item, double weight) {
+        if (item == null) {
+            throw new IllegalArgumentException("can't add null");
+        }
+        checkWeight(weight);
+
+        int slot;
+        if (freeCount != 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (top == items.length) {
+                grow();
+            }
+            slot = top++;
+        }
+
+        items[slot] = item;
+        weights[slot] = weight;
+        add(slot, weight);
+        accumulate(weight);
+        size++;
+
+        return slot;
+    }
+
+    public Item sample() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        return items[pickSlot()];
+    }
+
+    public Item dequeue() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        return removeSlot(pickSlot());
+    }
+
+    public double weight(int handle) {
+        checkHandle(handle);
+        return weights[handle];
+    }
+
+    public void updateWeight(int handle, double weight) {
+        checkHandle(handle);
+        checkWeight(weight);
+
+        add(handle, weight - weights[handle]);
+        accumulate(-weights[handle]);
+        accumulate(weight);
+        weights[handle] = weight;
+    }
+
+    /**
+     * Returns an immutable view of the current items and weights that samples
+     * in O(1) using Vose's alias method. Building it costs O(n).
+     */
+    public Snapshot<Item> snapshot() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        Object[] live = new Object[size];
+        double[] w = new double[size];
+        int n = 0;
+        for (int i = 0; i < top; i++) {
+            if (items[i] != null) {
+                live[n] = items[i];
+                w[n] = weights[i];
+                n++;
+            }
+        }
+
+        return new Snapshot<>(live, w, random.split());
+    }
+
+    private int pickSlot() {
+        double live = totalWeight();
+        double total = prefixSum(items.length);
+        if (!(total > 0) || Math.abs(total - live) > MAX_DRIFT * live) {
+            rebuild();
+            total = prefixSum(items.length);
+        }
+
+        for (int attempt = 0; attempt < MAX_REDRAWS; attempt++) {
+            int slot = findSlot(random.nextDouble() * total);
+
+            // rounding in the tree can push u past the last live slot; redraw
+            if (slot < top && items[slot] != null) {
+                return slot;
+            }
+        }
+
+        // the tree keeps missing, so walk the weights themselves
+        return scanSlot(random.nextDouble() * live);
+    }
+
+    /**
+     * Returns the live slot whose cumulative weight range contains u, in O(n),
+     * or the last live slot if rounding leaves u past the end.
+     */
+    private int scanSlot(double u) {
+        int last = -1;
+        for (int i = 0; i < top; i++) {
+            if (items[i] != null) {
+                last = i;
+                u -= weights[i];
+                if (u < 0) {
+                    return i;
+                }
+            }
+        }
+        return last;
+    }
+
+    private Item removeSlot(int slot) {
+        Item removed = items[slot];
+        add(slot, -weights[slot]);
+        accumulate(-weights[slot]);
+        items[slot] = null;
+        weights[slot] = 0;
+        size--;
+
+        if (size == 0) {
+            // start over so accumulated rounding in the tree is dropped
+            allocate(items.length);
+        } else {
+            freeSlots[freeCount++] = slot;
+        }
+
+        return removed;
+    }
+
+    private void add(int slot, double delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Adds delta to the live total with Neumaier's compensated summation, so
+     * a small weight survives next to a huge one that is later removed.
+     */
+    private void accumulate(double delta) {
+        double t = liveWeight + delta;
+        if (Math.abs(liveWeight) >= Math.abs(delta)) {
+            compensation += (liveWeight - t) + delta;
+        } else {
+            compensation += (delta - t) + liveWeight;
+        }
+        liveWeight = t;
+    }
+
+    private double prefixSum(int slots) {
+        double sum = 0;
+        for (int i = slots; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the slot whose cumulative weight range contains u.
+     */
+    private int findSlot(double u) {
+        int pos = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step != 0; step >>= 1) {
+            int next = pos + step;
+            if (next < tree.length && tree[next] <= u) {
+                pos = next;
+                u -= tree[next];
+            }
+        }
+        return pos;
+    }
+
+    private void allocate(int capacity) {
+        items = (Item[]) new Object[capacity];
+        weights = new double[capacity];
+        tree = new double[capacity + 1];
+        freeSlots = new int[capacity];
+        freeCount = 0;
+        top = 0;
+        liveWeight = 0;
+        compensation = 0;
+    }
+
+    private void grow() {
+        int capacity = items.length * 2;
+
+        Item[] ni = (Item[]) new Object[capacity];
+        System.arraycopy(items, 0, ni, 0, top);
+        double[] nw = new double[capacity];
+        System.arraycopy(weights, 0, nw, 0, top);
+        int[] nf = new int[capacity];
+        System.arraycopy(freeSlots, 0, nf, 0, freeCount);
+
+        items = ni;
+        weights = nw;
+        freeSlots = nf;
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the tree and the live total from weights[] in linear time,
+     * which drops all accumulated rounding.
+     */
+    private void rebuild() {
+        int capacity = items.length;
+        tree = new double[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            tree[i] += weights[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                tree[parent] += tree[i];
+            }
+        }
+
+        liveWeight = 0;
+        compensation = 0;
+        for (int i = 0; i < top; i++) {
+            accumulate(weights[i]);
+        }
+    }
+
+    private void checkHandle(int handle) {
+        if (handle < 0 || handle >= top || items[handle] == null) {
+            throw new IllegalArgumentException("stale or unknown handle: " + handle);
+        }
+    }
+
+    private static void checkWeight(double weight) {
+        if (!(weight > 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("weight must be positive and finite: " + weight);
+        }
+    }
+
+    public static class Snapshot<Item> {
+        private final Object[] items;
+        private final double[] prob;
+        private final int[] alias;
+        private final SplittableRandom random;
+
+        private Snapshot(Object[] items, double[] weights, SplittableRandom random) {
+            int n = items.length;
+            this.items = items;
+            this.random = random;
+            prob = new double[n];
+            alias = new int[n];
+
+            double total = 0;
+            for (double w : weights) {
+                total += w;
+            }
+
+            double[] scaled = new double[n];
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int smallCount = 0;
+            int largeCount = 0;
+
+            for (int i = 0; i < n; i++) {
+                scaled[i] = weights[i] * n / total;
+                if (scaled[i] < 1.0) {
+                    small[smallCount++] = i;
+                } else {
+                    large[largeCount++] = i;
+                }
+            }
+
+            while (smallCount != 0 && largeCount != 0) {
+                int s = small[--smallCount];
+                int l = large[--largeCount];
+
+                prob[s] = scaled[s];
+                alias[s] = l;
+
+                scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+                if (scaled[l] < 1.0) {
+                    small[smallCount++] = l;
+                } else {
+                    large[largeCount++] = l;
+                }
+            }
+
+            // whatever is left is 1 up to rounding
+            while (largeCount != 0) {
+                prob[large[--largeCount]] = 1.0;
+            }
+            while (smallCount != 0) {
+                prob[small[--smallCount]] = 1.0;
+            }
+        }
+
+        public int size() {
+            return items.length;
+        }
+
+        public Item sample() {
+            int i = random.nextInt(items.length);
+            return (Item) (random.nextDouble() < prob[i] ? items[i] : items[alias[i]]);
+        }
+    }
+
+    public static void main(String[] args) {
+        WeightedRandomizedQueue<String> wq = new WeightedRandomizedQueue<>(new SplittableRandom(7));
+
+        wq.enqueue("rare", 1);
+        int handle = wq.enqueue("common", 9);
+        wq.enqueue("sometimes", 5);
+        wq.updateWeight(handle, 90);
+
+        Snapshot<String> snapshot = wq.snapshot();
+        int common = 0;
+        for (int i = 0; i < 10000; i++) {
+            if ("common".equals(snapshot.sample())) {
+                common++;
+            }
+        }
+        System.out.println("common ~ " + common / 10000.0);
+
+        while (!wq.isEmpty()) {
+            System.out.println(wq.dequeue());
+        }
+
+        // a huge weight shrinking to a tiny one cancels in the tree's deltas;
+        // the total must stay right and sampling must still terminate
+        WeightedRandomizedQueue<String> mixed = new WeightedRandomizedQueue<>(new SplittableRandom(11));
+        int big = mixed.enqueue("big", 1e20);
+        mixed.enqueue("small", 1e-5);
+        mixed.updateWeight(big, 1e-5);
+        System.out.println("total after shrinking 1e20 to 1e-5: " + mixed.totalWeight());
+        if (Math.abs(mixed.totalWeight() - 2e-5) > 1e-15) {
+            throw new IllegalStateException("total weight drifted: " + mixed.totalWeight());
+        }
+        for (int i = 0; i < 1000; i++) {
+            mixed.sample();
+        }
+        int seen = 0;
+        for (int i = 0; i < 100; i++) {
+            int h = mixed.enqueue("tiny" + i, i % 2 == 0 ? 1e-12 : 1e18);
+            if (i % 2 == 1) {
+                mixed.updateWeight(h, 1e-12);
+            }
+        }
+        while (!mixed.isEmpty()) {
+            mixed.dequeue();
+            seen++;
+        }
+        System.out.println("dequeued " + seen + " mixed-weight items");
+    }
+}
@@ -1,59 +1,48 @@
-import edu.princeton.cs.algs4.In;
-import edu.princeton.cs.algs4.Queue;
 import edu.princeton.cs.algs4.StdDraw;
 import edu.princeton.cs.algs4.StdOut;
 
-import java.util.Arrays;
-
-public class BruteCollinearPoints {
+/**
+ * Checks every pair of points against every later point and reports the
+ * four-point lines it finds. It assumes no five points are collinear and
+ * fails on inputs that have such a line; PrunedBruteCollinearPoints is the
+ * exhaustive search that reports maximal segments of any length.
+ */
+public class BruteCollinearPoints implements CollinearFinder {
 
     private static final int SEGMENT_LEN = 4;
 
-    private final Queue<LineSegment> segments;
-    private LineSegment[] lineSegments;
+    private final SegmentList found = new SegmentList();
 
     public BruteCollinearPoints(Point[] points) {
-        validate(points);
-
-        segments = new Queue<>();
-
-        Point[] copiedPoints = new Point[points.length];
-        System.arraycopy(points, 0, copiedPoints, 0, points.length);
+        this(points, false);
+    }
 
-        findSegments(copiedPoints);
+    /**
+     * Lets callers whose points are already sorted in natural order and
+     * distinct skip the sort; the order is still checked in linear time.
+     */
+    public BruteCollinearPoints(Point[] points, boolean sortedDistinct) {
+        findSegments(CollinearInput.sortedCopy(points, sortedDistinct, null));
     }
 
+    @Override
     public int numberOfSegments() {
-        return segments.size();
+        return found.size();
     }
 
+    @Override
     public LineSegment[] segments() {
-        LineSegment[] ls = new LineSegment[lineSegments.length];
-        System.arraycopy(lineSegments, 0, ls, 0, lineSegments.length);
-        return ls;
+        return found.segments();
     }
 
-    private void validate(Point[] points) {
-        if (points == null) {
-            throw new IllegalArgumentException("Input argument is null");
-        }
-
-        for (int i = 0; i < points.length; i++) {
-            if (points[i] == null) {
-                throw new IllegalArgumentException("Null is prohibited");
-            }
-
-            for (int y = 0; y < i; y++) {
-                if (points[y].compareTo(points[i]) == 0) {
-                    throw new IllegalArgumentException("Equal points were found");
-                }
-            }
-        }
+    /**
+     * Hands the endpoints of every segment to the sink, in segments() order.
+     */
+    public void forEachSegment(SegmentSink sink) {
+        found.replay(sink);
     }
 
     private void findSegments(Point[] points) {
-        Arrays.sort(points);
-
         for (int i = 0; i < points.length - SEGMENT_LEN + 1; i++) {
             for (int j = i + 1; j < points.length - SEGMENT_LEN + 2; j++) {
                 Point[] collinearPoints = new Point[SEGMENT_LEN];
@@ -61,37 +50,35 @@ public class BruteCollinearPoints {
                 collinearPoints[1] = points[j];
                 int cPointsNum = 2;
 
-                double slope = points[j].slopeTo(points[i]);
-
                 for (int k = j + 1; k < points.length; k++) {
-                    if (slope == points[k].slopeTo(points[j])) {
+                    if (points[j].compareSlopes(points[i], points[k]) == 0) {
                         collinearPoints[cPointsNum++] = points[k];
                     }
                 }
 
                 if (collinearPoints[SEGMENT_LEN - 1] != null) {
-                    segments.enqueue(new LineSegment(collinearPoints[0], collinearPoints[SEGMENT_LEN - 1]));
+                    found.accept(collinearPoints[0], collinearPoints[SEGMENT_LEN - 1]);
                 }
             }
         }
-
-        lineSegments = new LineSegment[segments.size()];
-        int i = 0;
-
-        for (LineSegment ls : segments) {
-            lineSegments[i++] = ls;
-        }
     }
 
     public static void main(String[] args) {
-        // read the n points from a file
-        In in = new In(args[0]);
-        int n = in.readInt();
-        Point[] points = new Point[n];
-        for (int i = 0; i < n; i++) {
-            int x = in.readInt();
-            int y = in.readInt();
-            points[i] = new Point(x, y);
+        // read the n points from a text or binary point file
+        Point[] points = PointFile.read(args[0]).toPoints();
+
+        // with an output file, render headlessly to a PNG instead of StdDraw
+        if (args.length > 1) {
+            BruteCollinearPoints collinear = new BruteCollinearPoints(points);
+            for (LineSegment segment : collinear.segments()) {
+                StdOut.println(segment);
+            }
+
+            CollinearRenderer renderer = new CollinearRenderer(args.length > 2 ? Integer.parseInt(args[2]) : 1024);
+            collinear.forEachSegment(renderer);
+            renderer.drawPoints(points);
+            renderer.writePng(args[1]);
+            return;
         }
 
         // draw the points
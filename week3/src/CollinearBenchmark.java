@@ -0,0 +1,230 @@
+/******************************************************************************
+ *  Compilation:  javac -cp ../../lib/algs4.jar *.java
+ *  Execution:    java -cp .:../../lib/algs4.jar CollinearBenchmark [dir] [timeLimitSeconds]
+ *  Dependencies: BruteCollinearPoints.java FastCollinearPoints.java
+ *                CollinearStats.java PointFile.java
+ *
+ *  Runs BruteCollinearPoints and FastCollinearPoints over the bundled
+ *  datasets in dir (default collinear): input8.txt .. input10000.txt,
+ *  mystery10089.txt and rs1423.txt, in order of size. For every finder and
+ *  dataset it reports the median time of several runs and the exponent of
+ *  the scaling curve against a dataset at least 1.5 times smaller, i.e. the
+ *  k in time ~ n^k. One extra instrumented run of FastCollinearPoints reports its
+ *  CollinearStats counters.
+ *
+ *  BruteCollinearPoints only handles lines of at most four points, so it is
+ *  reported as failed on inputs with longer ones. A finder is not run on a
+ *  dataset it would need more than the time limit (default 20 s) for,
+ *  extrapolating from the previous one, or on any larger one.
+ *
+ ******************************************************************************/
+
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class CollinearBenchmark {
+
+    private static final Pattern INPUT = Pattern.compile("input(\\d+)\\.txt");
+    private static final int MIN_INPUT = 8;
+    private static final int MAX_INPUT = 10000;
+    private static final String[] EXTRA = {"mystery10089.txt", "rs1423.txt"};
+
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int MAX_RUNS = 7;
+    private static final long MIN_TIME_NS = 500_000_000L;  // keep repeating a dataset until this much
+
+    private static final double SCALE_STEP = 1.5;
+    private static final double MIN_CURVE_MS = 0.1;
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        String dir = args.length > 0 ? args[0] : "collinear";
+        long limitNs = (args.length > 1 ? Long.parseLong(args[1]) : 20) * 1_000_000_000L;
+
+        List<Dataset> datasets = datasets(dir);
+        if (datasets.isEmpty()) {
+            throw new IllegalArgumentException("No datasets found in " + dir);
+        }
+
+        Finder[] finders = {
+            new Finder("BruteCollinearPoints", 3) {
+                CollinearFinder run(Point[] points) { return new BruteCollinearPoints(points); }
+            },
+            new Finder("FastCollinearPoints", 2) {
+                CollinearFinder run(Point[] points) { return new FastCollinearPoints(points); }
+            },
+        };
+
+        // warm up on the smallest inputs so the JIT has compiled the search
+        for (Finder f : finders) {
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                for (Dataset d : datasets.subList(0, Math.min(5, datasets.size()))) {
+                    try {
+                        f.time(d.points);
+                    } catch (RuntimeException e) {
+                        // reported when the dataset is measured
+                    }
+                }
+            }
+        }
+
+        StdOut.printf("%-22s %-18s %7s %12s %8s %9s%n", "finder", "dataset", "n", "median ms", "runs", "exponent");
+        for (Finder f : finders) {
+            Dataset previous = null;
+            double previousMs = 0;
+            List<double[]> curve = new ArrayList<>();      // (n, ms) of every measured dataset
+
+            for (Dataset d : datasets) {
+                if (previous != null && f.tooSlow((long) (previousMs * 1e6), previous.points.length,
+                        d.points.length, limitNs)) {
+                    StdOut.printf("%-22s skipping %s and larger, expected to take over the time limit%n",
+                            f.name, d.name);
+                    break;
+                }
+
+                long[] times;
+                try {
+                    times = f.measure(d.points);
+                } catch (RuntimeException e) {
+                    StdOut.printf("%-22s %-18s %7d %12s   (%s)%n", f.name, d.name, d.points.length, "failed",
+                            e.getClass().getSimpleName());
+                    continue;
+                }
+
+                double ms = times[times.length / 2] / 1e6;
+                String exponent = exponent(curve, d.points.length, ms);
+                curve.add(new double[] {d.points.length, ms});
+                StdOut.printf("%-22s %-18s %7d %12.3f %8d %9s%n", f.name, d.name, d.points.length, ms,
+                        times.length, exponent);
+
+                previous = d;
+                previousMs = ms;
+            }
+        }
+
+        StdOut.println();
+        StdOut.println("FastCollinearPoints counters");
+        for (Dataset d : datasets) {
+            CollinearStats stats = new CollinearStats();
+            long start = System.nanoTime();
+            new FastCollinearPoints(d.points, null, false, stats);
+            long nanos = System.nanoTime() - start;
+
+            StdOut.printf("%-18s %7d  %s%n", d.name, d.points.length, stats);
+            if (nanos > limitNs) {
+                StdOut.println("skipping larger datasets");
+                break;
+            }
+        }
+
+        if (sink == 42) {
+            StdOut.println();
+        }
+    }
+
+    /**
+     * Returns the slope of the log-log curve between this measurement and
+     * the largest earlier one at least SCALE_STEP times smaller; sizes that
+     * close together or times that short are mostly noise.
+     */
+    private static String exponent(List<double[]> curve, int n, double ms) {
+        for (int i = curve.size() - 1; i >= 0; i--) {
+            double[] point = curve.get(i);
+            if (point[0] * SCALE_STEP <= n) {
+                if (point[1] < MIN_CURVE_MS) {
+                    return "";
+                }
+                return String.format("%.2f", Math.log(ms / point[1]) / Math.log(n / point[0]));
+            }
+        }
+        return "";
+    }
+
+    private static List<Dataset> datasets(String dir) {
+        List<Dataset> datasets = new ArrayList<>();
+        File[] files = new File(dir).listFiles();
+        if (files == null) {
+            return datasets;
+        }
+
+        for (File file : files) {
+            String name = file.getName();
+            Matcher m = INPUT.matcher(name);
+            boolean wanted = m.matches()
+                    && Integer.parseInt(m.group(1)) >= MIN_INPUT && Integer.parseInt(m.group(1)) <= MAX_INPUT;
+            wanted |= Arrays.asList(EXTRA).contains(name);
+            if (wanted) {
+                datasets.add(new Dataset(name, PointFile.read(file.getPath()).toPoints()));
+            }
+        }
+
+        datasets.sort(new Comparator<Dataset>() {
+            @Override
+            public int compare(Dataset a, Dataset b) {
+                return a.points.length != b.points.length
+                        ? Integer.compare(a.points.length, b.points.length)
+                        : a.name.compareTo(b.name);
+            }
+        });
+        return datasets;
+    }
+
+    private static class Dataset {
+        private final String name;
+        private final Point[] points;
+
+        Dataset(String name, Point[] points) {
+            this.name = name;
+            this.points = points;
+        }
+    }
+
+    private abstract static class Finder {
+        private final String name;
+        private final int exponent;     // expected growth, used to skip hopeless sizes
+
+        Finder(String name, int exponent) {
+            this.name = name;
+            this.exponent = exponent;
+        }
+
+        boolean tooSlow(long previousNs, int previousN, int n, long limitNs) {
+            return previousNs * Math.pow((double) n / previousN, exponent) > limitNs;
+        }
+
+        abstract CollinearFinder run(Point[] points);
+
+        long time(Point[] points) {
+            long start = System.nanoTime();
+            sink += run(points).numberOfSegments();
+            return System.nanoTime() - start;
+        }
+
+        /**
+         * Returns the sorted times of at least one and at most MAX_RUNS runs,
+         * stopping once they add up to MIN_TIME_NS.
+         */
+        long[] measure(Point[] points) {
+            long[] times = new long[MAX_RUNS];
+            long total = 0;
+            int runs = 0;
+            while (runs < MAX_RUNS && (runs == 0 || total < MIN_TIME_NS)) {
+                times[runs] = time(points);
+                total += times[runs];
+                runs++;
+            }
+
+            times = Arrays.copyOf(times, runs);
+            Arrays.sort(times);
+            return times;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+/**
+ * Common view of the collinear-point finders. Each segment runs from the
+ * smallest to the largest point of a set of collinear points. Most finders
+ * report every maximal set of four or more points exactly once, but not all:
+ * BruteCollinearPoints, like the assignment's brute force, only handles
+ * inputs without five collinear points, HoughCollinearPoints may miss
+ * shorter lines, and CollinearLines takes its own minimum line length.
+ */
+public interface CollinearFinder {
+
+    int numberOfSegments();
+
+    LineSegment[] segments();
+}
@@ -0,0 +1,53 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Input validation shared by the exact collinear finders, which accept
+ * points with any int coordinates.
+ */
+final class CollinearInput {
+
+    private CollinearInput() { }
+
+    /**
+     * Returns a sorted copy of the points, rejecting null and duplicate
+     * entries. Duplicates end up next to each other after the sort, so one
+     * pass over neighbours finds them. If the caller promises sorted, distinct
+     * input the sort is skipped and the promise is checked in the same pass.
+     * Comparisons are counted in stats, if not null.
+     */
+    static Point[] sortedCopy(Point[] points, boolean sortedDistinct, CollinearStats stats) {
+        if (points == null) {
+            throw new IllegalArgumentException("Input argument is null");
+        }
+
+        // a null comparator means natural order
+        Comparator<Point> order = stats == null ? null : stats.countingNaturalOrder();
+
+        Point[] copiedPoints = new Point[points.length];
+        for (int i = 0; i < points.length; i++) {
+            if (points[i] == null) {
+                throw new IllegalArgumentException("Null is prohibited");
+            }
+            copiedPoints[i] = points[i];
+        }
+
+        if (!sortedDistinct) {
+            Arrays.sort(copiedPoints, order);
+        }
+
+        for (int i = 1; i < copiedPoints.length; i++) {
+            int cmp = order == null
+                    ? copiedPoints[i - 1].compareTo(copiedPoints[i])
+                    : order.compare(copiedPoints[i - 1], copiedPoints[i]);
+            if (cmp == 0) {
+                throw new IllegalArgumentException("Equal points were found");
+            }
+            if (cmp > 0) {
+                throw new IllegalArgumentException("Points are not sorted");
+            }
+        }
+
+        return copiedPoints;
+    }
+}
@@ -0,0 +1,154 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+
+/**
+ * Finds every maximal line through at least k of the given points, for any
+ * k >= 2, and keeps each line's full member list. Members are reported as
+ * indices into the input array, in the natural order of the points, and are
+ * stored in one flat int array with an offset per line.
+ *
+ * Each origin sorts its later points by exact direction key (see
+ * DirectionRuns), so coordinates must lie in 0..32767. Origins with fewer
+ * than k - 1 later points are never scanned, and a direction run is only
+ * measured once its first and (k - 1)th points agree. With k = 4,
+ * segments() returns the same segments as FastCollinearPoints, in the same
+ * order; PackedCollinearPoints is exactly that.
+ */
+public class CollinearLines implements CollinearFinder {
+
+    private final Point[] points;
+    private final int minPoints;
+    private int[] members = new int[16];
+    private int[] offsets = new int[] {0, 0, 0, 0};
+    private int lines;
+
+    public CollinearLines(Point[] points, int minPoints) {
+        if (minPoints < 2) {
+            throw new IllegalArgumentException("A line needs at least 2 points: " + minPoints);
+        }
+
+        int[] order = PackedCollinearPoints.sortGridOrder(points);
+        this.points = points.clone();
+        this.minPoints = minPoints;
+
+        findLines(order);
+    }
+
+    public int minPoints() {
+        return minPoints;
+    }
+
+    public int numberOfLines() {
+        return lines;
+    }
+
+    public int lineSize(int line) {
+        checkLine(line);
+        return offsets[line + 1] - offsets[line];
+    }
+
+    /**
+     * Returns the input indices of the points on the given line, ordered
+     * along it from its smallest point to its largest.
+     */
+    public int[] line(int line) {
+        checkLine(line);
+        return Arrays.copyOfRange(members, offsets[line], offsets[line + 1]);
+    }
+
+    public int[][] lines() {
+        int[][] all = new int[lines][];
+        for (int i = 0; i < lines; i++) {
+            all[i] = line(i);
+        }
+        return all;
+    }
+
+    @Override
+    public int numberOfSegments() {
+        return lines;
+    }
+
+    @Override
+    public LineSegment[] segments() {
+        LineSegment[] ls = new LineSegment[lines];
+        for (int i = 0; i < lines; i++) {
+            ls[i] = new LineSegment(points[members[offsets[i]]], points[members[offsets[i + 1] - 1]]);
+        }
+        return ls;
+    }
+
+    private void findLines(int[] order) {
+        int n = order.length;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = points[order[i]].x();
+            ys[i] = points[order[i]].y();
+        }
+
+        int rest = minPoints - 1;     // points a run needs besides the origin
+        DirectionRuns runs = new DirectionRuns(xs, ys);
+        LongHashSet seen = new LongHashSet();
+
+        for (int i = 0; i < n - rest; i++) {
+            runs.scan(i, rest);
+            runs.keepNew(seen);
+            runs.sortBySlope();
+
+            for (int r = 0; r < runs.size(); r++) {
+                int length = runs.length(r);
+                beginLine(length + 1);
+                addMember(order[i]);
+                for (int k = 0; k < length; k++) {
+                    addMember(order[runs.member(r, k)]);
+                }
+            }
+        }
+
+        members = Arrays.copyOf(members, offsets[lines]);
+        offsets = Arrays.copyOf(offsets, lines + 1);
+    }
+
+    private void beginLine(int size) {
+        if (lines + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        int end = offsets[lines];
+        if (end + size > members.length) {
+            members = Arrays.copyOf(members, Math.max(members.length * 2, end + size));
+        }
+
+        lines++;
+        offsets[lines] = end;
+    }
+
+    private void addMember(int index) {
+        members[offsets[lines]++] = index;
+    }
+
+    private void checkLine(int line) {
+        if (line < 0 || line >= lines) {
+            throw new IllegalArgumentException("No such line: " + line);
+        }
+    }
+
+    /**
+     * Prints every line of at least k points (default 4) with its members:
+     * java CollinearLines input.txt [k]
+     */
+    public static void main(String[] args) {
+        Point[] points = PointFile.read(args[0]).toPoints();
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        CollinearLines collinear = new CollinearLines(points, k);
+        for (int i = 0; i < collinear.numberOfLines(); i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int index : collinear.line(i)) {
+                sb.append(points[index]).append(' ');
+            }
+            StdOut.println(sb.toString().trim());
+        }
+    }
+}
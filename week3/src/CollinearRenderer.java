@@ -0,0 +1,138 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import javax.imageio.ImageIO;
+
+/**
+ * Draws points and segments of the 0..32767 grid into an offscreen image
+ * and writes it as a PNG, without a display. Everything is drawn straight
+ * into the image's int[] raster, points as small squares and segments with
+ * Bresenham's algorithm, so tens of thousands of primitives take
+ * milliseconds instead of the seconds StdDraw needs to draw them one by one.
+ */
+public class CollinearRenderer implements SegmentSink {
+
+    private static final int BACKGROUND = 0xffffff;
+    private static final int POINT_COLOR = 0x000000;
+    private static final int SEGMENT_COLOR = 0xd0202a;
+    private static final int POINT_RADIUS = 1;      // points are 3x3 pixels
+
+    static {
+        // must be set before anything touches AWT
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+    }
+
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final int size;
+
+    public CollinearRenderer(int size) {
+        if (size < 2) {
+            throw new IllegalArgumentException("Image size must be at least 2: " + size);
+        }
+
+        this.size = size;
+        image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        Arrays.fill(pixels, BACKGROUND);
+    }
+
+    public void drawPoints(Point[] points) {
+        if (points == null) {
+            throw new IllegalArgumentException("Input argument is null");
+        }
+
+        for (Point p : points) {
+            drawPoint(p.x(), p.y());
+        }
+    }
+
+    public void drawPoint(int x, int y) {
+        int px = toPixel(x);
+        int py = size - 1 - toPixel(y);
+        for (int r = Math.max(0, py - POINT_RADIUS); r <= Math.min(size - 1, py + POINT_RADIUS); r++) {
+            for (int c = Math.max(0, px - POINT_RADIUS); c <= Math.min(size - 1, px + POINT_RADIUS); c++) {
+                pixels[r * size + c] = POINT_COLOR;
+            }
+        }
+    }
+
+    @Override
+    public void accept(Point start, Point end) {
+        drawSegment(start.x(), start.y(), end.x(), end.y());
+    }
+
+    public void drawSegment(int x0, int y0, int x1, int y1) {
+        line(toPixel(x0), size - 1 - toPixel(y0), toPixel(x1), size - 1 - toPixel(y1));
+    }
+
+    public void writePng(String path) {
+        try {
+            if (!ImageIO.write(image, "png", new File(path))) {
+                throw new IllegalStateException("No PNG writer available");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Bresenham's line between two pixels, clipped to the image.
+     */
+    private void line(int x0, int y0, int x1, int y1) {
+        int dx = Math.abs(x1 - x0);
+        int dy = -Math.abs(y1 - y0);
+        int sx = x0 < x1 ? 1 : -1;
+        int sy = y0 < y1 ? 1 : -1;
+        int err = dx + dy;
+
+        while (true) {
+            if (x0 >= 0 && x0 < size && y0 >= 0 && y0 < size) {
+                pixels[y0 * size + x0] = SEGMENT_COLOR;
+            }
+            if (x0 == x1 && y0 == y1) {
+                break;
+            }
+
+            int e2 = 2 * err;
+            if (e2 >= dy) {
+                err += dy;
+                x0 += sx;
+            }
+            if (e2 <= dx) {
+                err += dx;
+                y0 += sy;
+            }
+        }
+    }
+
+    private int toPixel(int coordinate) {
+        return (int) ((long) coordinate * (size - 1) / Directions.MAX_COORDINATE);
+    }
+
+    /**
+     * Renders the points of a file and the segments FastCollinearPoints finds:
+     * java CollinearRenderer input.txt output.png [size]
+     */
+    public static void main(String[] args) {
+        Point[] points = PointFile.read(args[0]).toPoints();
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+
+        long start = System.nanoTime();
+        CollinearRenderer renderer = new CollinearRenderer(size);
+        FastCollinearPoints.findSegments(points, renderer);
+        long searched = System.nanoTime();
+        renderer.drawPoints(points);
+        renderer.writePng(args[1]);
+
+        StdOut.printf("search %.1f ms, render %.1f ms%n",
+                (searched - start) / 1e6, (System.nanoTime() - searched) / 1e6);
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.Comparator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters filled in by FastCollinearPoints when it is given an instance:
+ * point comparisons made while sorting and validating, compareSlopes() calls
+ * (which replace slopeTo() in the search), candidate segments before and
+ * after deduplication, and the time spent on each origin.
+ *
+ * Comparisons are counted with LongAdders, so a parallel scan can share one
+ * instance. An instance describes the last run it was passed to.
+ */
+public class CollinearStats {
+
+    private final LongAdder pointComparisons = new LongAdder();
+    private final LongAdder slopeComparisons = new LongAdder();
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder segments = new LongAdder();
+    private long[] originNanos = new long[0];
+
+    public long pointComparisons() {
+        return pointComparisons.sum();
+    }
+
+    public long slopeComparisons() {
+        return slopeComparisons.sum();
+    }
+
+    /**
+     * Returns the number of segments reported by some origin, counting a
+     * line once for every origin that saw it.
+     */
+    public long candidates() {
+        return candidates.sum();
+    }
+
+    public long segments() {
+        return segments.sum();
+    }
+
+    public long duplicates() {
+        return candidates() - segments();
+    }
+
+    public int origins() {
+        return originNanos.length;
+    }
+
+    public long originNanos(int origin) {
+        if (origin < 0 || origin >= originNanos.length) {
+            throw new IllegalArgumentException("No such origin: " + origin);
+        }
+        return originNanos[origin];
+    }
+
+    public long totalOriginNanos() {
+        long total = 0;
+        for (long t : originNanos) {
+            total += t;
+        }
+        return total;
+    }
+
+    public long maxOriginNanos() {
+        long max = 0;
+        for (long t : originNanos) {
+            max = Math.max(max, t);
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("point comparisons %d, slope comparisons %d, candidates %d, segments %d, "
+                        + "origins %d (total %.1f ms, max %.1f us)",
+                pointComparisons(), slopeComparisons(), candidates(), segments(),
+                origins(), totalOriginNanos() / 1e6, maxOriginNanos() / 1e3);
+    }
+
+    void reset(int origins) {
+        pointComparisons.reset();
+        slopeComparisons.reset();
+        candidates.reset();
+        segments.reset();
+        originNanos = new long[origins];
+    }
+
+    Comparator<Point> countingNaturalOrder() {
+        return new Comparator<Point>() {
+            @Override
+            public int compare(Point p, Point q) {
+                pointComparisons.increment();
+                return p.compareTo(q);
+            }
+        };
+    }
+
+    Comparator<Point> countingSlopeOrder(final Point origin) {
+        return new Comparator<Point>() {
+            @Override
+            public int compare(Point p, Point q) {
+                slopeComparisons.increment();
+                return origin.compareSlopes(p, q);
+            }
+        };
+    }
+
+    void addSlopeComparisons(int count) {
+        slopeComparisons.add(count);
+    }
+
+    void addCandidate(boolean kept) {
+        candidates.increment();
+        if (kept) {
+            segments.increment();
+        }
+    }
+
+    // each origin is scanned by exactly one thread
+    void recordOrigin(int origin, long nanos) {
+        originNanos[origin] = nanos;
+    }
+}
@@ -0,0 +1,186 @@
+import java.util.Arrays;
+
+/**
+ * The per-origin step of the direction-key finders (CollinearLines,
+ * HashCollinearPoints, TiledCollinearPoints). For one origin it collects the
+ * runs of later points that share an exact direction (see Directions), can
+ * drop the runs of lines an earlier origin already reported, and orders the
+ * rest by slope the way FastCollinearPoints lists an origin's segments.
+ *
+ * A line is identified by its last two points: every origin on it sees the
+ * same two at the end of its run, so the first origin to keep the line is
+ * its smallest point. Points are indices into the xs and ys arrays, which
+ * must be in natural order with coordinates in 0..32767.
+ */
+final class DirectionRuns {
+
+    private final int[] xs;
+    private final int[] ys;
+    private final long[] scratch;   // direction key << 32 | point, per later point
+
+    private int[] directions = new int[4];
+    private int[] starts = new int[4];       // members are scratch[start, end), if known
+    private int[] ends = new int[4];
+    private int[] penultimates = new int[4];
+    private int[] lasts = new int[4];
+    private int[] order = new int[4];
+    private int[] tmp = new int[4];
+    private int runs;
+
+    /**
+     * Returns an instance for runs added with add() only, without scan().
+     */
+    DirectionRuns() {
+        this(new int[0], new int[0]);
+    }
+
+    DirectionRuns(int[] xs, int[] ys) {
+        this.xs = xs;
+        this.ys = ys;
+        scratch = new long[xs.length];
+    }
+
+    /**
+     * Sorts the points after the origin by direction and collects every
+     * direction with at least rest of them, so every line through the origin
+     * and rest later points.
+     *
+     * @return the number of runs
+     */
+    int scan(int origin, int rest) {
+        clear();
+
+        int n = xs.length;
+        int m = 0;
+        for (int j = origin + 1; j < n; j++) {
+            long direction = Directions.of(xs[j] - xs[origin], ys[j] - ys[origin]);
+            scratch[m++] = direction << 32 | j;
+        }
+        Arrays.sort(scratch, 0, m);
+
+        for (int a = 0; a <= m - rest;) {
+            int direction = (int) (scratch[a] >>> 32);
+            // sorted, so a and a + rest - 1 agree only if everything between does
+            if ((int) (scratch[a + rest - 1] >>> 32) != direction) {
+                a++;
+                continue;
+            }
+
+            int b = a + rest;
+            while (b < m && (int) (scratch[b] >>> 32) == direction) {
+                b++;
+            }
+
+            // with a run of one the origin is the other point of the pair
+            int penultimate = b - a >= 2 ? (int) scratch[b - 2] : origin;
+            add(direction, a, b, penultimate, (int) scratch[b - 1]);
+            a = b;
+        }
+
+        return runs;
+    }
+
+    /**
+     * Adds a run found some other way, without its member list.
+     */
+    void add(int direction, int penultimate, int last) {
+        add(direction, -1, -1, penultimate, last);
+    }
+
+    /**
+     * Drops the runs whose line is already in seen and adds the others to it.
+     *
+     * @return the number of runs left
+     */
+    int keepNew(LongHashSet seen) {
+        int kept = 0;
+        for (int r = 0; r < runs; r++) {
+            if (seen.add((long) penultimates[r] << 32 | lasts[r])) {
+                move(r, kept++);
+            }
+        }
+        runs = kept;
+        return runs;
+    }
+
+    void sortBySlope() {
+        if (runs < 2) {
+            return;
+        }
+
+        for (int r = 0; r < runs; r++) {
+            order[r] = r;
+        }
+        Directions.sortBySlope(directions, order, runs);
+
+        permute(starts);
+        permute(ends);
+        permute(penultimates);
+        permute(lasts);
+    }
+
+    void clear() {
+        runs = 0;
+    }
+
+    int size() {
+        return runs;
+    }
+
+    int direction(int run) {
+        return directions[run];
+    }
+
+    int last(int run) {
+        return lasts[run];
+    }
+
+    /**
+     * Returns the number of later points in the run; scan() runs only.
+     */
+    int length(int run) {
+        return ends[run] - starts[run];
+    }
+
+    /**
+     * Returns the k-th later point of the run in natural order; scan() runs only.
+     */
+    int member(int run, int k) {
+        return (int) scratch[starts[run] + k];
+    }
+
+    private void add(int direction, int start, int end, int penultimate, int last) {
+        if (runs == directions.length) {
+            int capacity = runs * 2;
+            directions = Arrays.copyOf(directions, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            penultimates = Arrays.copyOf(penultimates, capacity);
+            lasts = Arrays.copyOf(lasts, capacity);
+            order = new int[capacity];
+            tmp = new int[capacity];
+        }
+
+        directions[runs] = direction;
+        starts[runs] = start;
+        ends[runs] = end;
+        penultimates[runs] = penultimate;
+        lasts[runs] = last;
+        runs++;
+    }
+
+    private void move(int from, int to) {
+        directions[to] = directions[from];
+        starts[to] = starts[from];
+        ends[to] = ends[from];
+        penultimates[to] = penultimates[from];
+        lasts[to] = lasts[from];
+    }
+
+    private void permute(int[] values) {
+        for (int r = 0; r < runs; r++) {
+            tmp[r] = values[order[r]];
+        }
+        System.arraycopy(tmp, 0, values, 0, runs);
+    }
+}
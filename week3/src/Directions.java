@@ -0,0 +1,110 @@
+/**
+ * Exact integer keys for the direction between two points of the
+ * 0..32767 grid used by the collinear finders.
+ *
+ * A direction is reduced to lowest terms and turned to point into the upper
+ * half-plane (dy > 0, or dy == 0 and dx > 0), so two vectors get the same key
+ * if and only if they are parallel. The key packs dy into bits 16..30 and
+ * dx + 32768 into bits 0..15, which keeps it a non-negative int.
+ */
+public final class Directions {
+
+    static final int MAX_COORDINATE = 32767;
+
+    private static final int DX_OFFSET = 1 << 15;
+    private static final long INTERCEPT_OFFSET = (long) MAX_COORDINATE * MAX_COORDINATE;
+
+    private Directions() { }
+
+    public static int of(int dx, int dy) {
+        if (dy < 0 || (dy == 0 && dx < 0)) {
+            dx = -dx;
+            dy = -dy;
+        }
+
+        int g = gcd(Math.abs(dx), dy);
+        if (g > 1) {
+            dx /= g;
+            dy /= g;
+        }
+
+        return (dy << 16) | (dx + DX_OFFSET);
+    }
+
+    public static int dx(int direction) {
+        return (direction & 0xffff) - DX_OFFSET;
+    }
+
+    public static int dy(int direction) {
+        return direction >>> 16;
+    }
+
+    /**
+     * Returns a key identifying the whole line with the given direction key
+     * through (x, y): the direction in the high 31 bits and, in the low 32,
+     * the intercept dy * x - dx * y, which is the same for every point of the
+     * line and fits once shifted to be non-negative.
+     */
+    public static long lineKey(int direction, int x, int y) {
+        long intercept = (long) dy(direction) * x - (long) dx(direction) * y;
+        return (long) direction << 32 | (intercept + INTERCEPT_OFFSET);
+    }
+
+    /**
+     * Orders two direction keys by slope, consistently with Point.slopeTo():
+     * negative slopes, then horizontal, then positive, then vertical.
+     */
+    public static int compareSlopes(int a, int b) {
+        int dxa = dx(a);
+        int dya = dy(a);
+        int dxb = dx(b);
+        int dyb = dy(b);
+
+        if (dxa == 0 || dxb == 0) {
+            return (dxa == 0 ? 1 : 0) - (dxb == 0 ? 1 : 0);
+        }
+
+        if (dxa < 0) {
+            dxa = -dxa;
+            dya = -dya;
+        }
+        if (dxb < 0) {
+            dxb = -dxb;
+            dyb = -dyb;
+        }
+
+        return Long.signum((long) dya * dxb - (long) dyb * dxa);
+    }
+
+    /**
+     * Sorts direction keys by slope, carrying a parallel int payload along.
+     * Insertion sort: an origin rarely starts more than a handful of segments.
+     */
+    static void sortBySlope(int[] directions, int[] payload, int n) {
+        for (int i = 1; i < n; i++) {
+            int d = directions[i];
+            int p = payload[i];
+            int j = i - 1;
+            while (j >= 0 && compareSlopes(directions[j], d) > 0) {
+                directions[j + 1] = directions[j];
+                payload[j + 1] = payload[j];
+                j--;
+            }
+            directions[j + 1] = d;
+            payload[j + 1] = p;
+        }
+    }
+
+    static boolean inRange(int x, int y) {
+        return x >= 0 && x <= MAX_COORDINATE && y >= 0 && y <= MAX_COORDINATE;
+    }
+
+    static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
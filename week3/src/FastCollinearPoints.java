@@ -1,128 +1,345 @@
-import edu.princeton.cs.algs4.In;
-import edu.princeton.cs.algs4.Queue;
 import edu.princeton.cs.algs4.StdDraw;
 import edu.princeton.cs.algs4.StdOut;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
-public class FastCollinearPoints {
+public class FastCollinearPoints implements CollinearFinder {
 
-    private LineSegment[] lineSegments;
+    // each pool thread gets about this many origin ranges to balance the
+    // uneven cost of early (many later points) and late origins
+    private static final int TASKS_PER_THREAD = 8;
+
+    // the streaming scan starts dropping finished lines from its dedup set
+    // once it holds this many
+    private static final int PURGE_THRESHOLD = 1024;
+
+    private final SegmentList found = new SegmentList();
 
     public FastCollinearPoints(Point[] points) {
-        validate(points);
+        this(points, null, false);
+    }
+
+    /**
+     * Lets callers whose points are already sorted in natural order and
+     * distinct skip the sort; the order is still checked in linear time.
+     */
+    public FastCollinearPoints(Point[] points, boolean sortedDistinct) {
+        this(points, null, sortedDistinct);
+    }
 
-        Point[] copiedPoints = new Point[points.length];
-        System.arraycopy(points, 0, copiedPoints, 0, points.length);
+    /**
+     * Scans origin points in parallel on the given pool, or sequentially if
+     * the pool is null. The segments and their order are the same either way.
+     */
+    public FastCollinearPoints(Point[] points, ForkJoinPool pool) {
+        this(points, pool, false);
+    }
 
-        findSegments(copiedPoints);
+    public FastCollinearPoints(Point[] points, ForkJoinPool pool, boolean sortedDistinct) {
+        this(points, pool, sortedDistinct, null);
     }
 
+    /**
+     * Also fills in the given stats, if not null. Counting slows the search
+     * down somewhat, so it is off unless asked for.
+     */
+    public FastCollinearPoints(Point[] points, ForkJoinPool pool, boolean sortedDistinct, CollinearStats stats) {
+        if (stats != null) {
+            // a new run: one origin per point but the last
+            stats.reset(points == null ? 0 : Math.max(0, points.length - 1));
+        }
+
+        Point[] sorted = CollinearInput.sortedCopy(points, sortedDistinct, stats);
+        if (pool == null) {
+            streamSegments(sorted, found, stats);
+        } else {
+            findSegments(sorted, pool, found, stats);
+        }
+    }
+
+    /**
+     * Hands every segment to the sink as soon as it is confirmed, in the same
+     * order segments() would list them, without collecting the results.
+     * Only the lines that later origins may still report are remembered.
+     */
+    public static void findSegments(Point[] points, SegmentSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Sink is null");
+        }
+
+        streamSegments(CollinearInput.sortedCopy(points, false, null), sink, null);
+    }
+
+    @Override
     public int numberOfSegments() {
-        return lineSegments.length;
+        return found.size();
     }
 
+    @Override
     public LineSegment[] segments() {
-        LineSegment[] ls = new LineSegment[lineSegments.length];
-        System.arraycopy(lineSegments, 0, ls, 0, lineSegments.length);
-        return ls;
+        return found.segments();
     }
 
-    private void validate(Point[] points) {
-        if (points == null) {
-            throw new IllegalArgumentException("Input argument is null");
-        }
+    /**
+     * Hands the endpoints of every segment to the sink, in segments() order.
+     */
+    public void forEachSegment(SegmentSink sink) {
+        found.replay(sink);
+    }
+
+    private static void streamSegments(Point[] points, SegmentSink sink, CollinearStats stats) {
+        Point[] scratch = new Point[points.length];
+        List<Candidate> candidates = new ArrayList<>();
+        PointPairSet seen = new PointPairSet(0);
+        int purgeAt = PURGE_THRESHOLD;
 
-        for (int i = 0; i < points.length; i++) {
-            if (points[i] == null) {
-                throw new IllegalArgumentException("Null is prohibited");
+        for (int i = 0; i < points.length - 1; i++) {
+            candidates.clear();
+            scanOrigin(points, i, scratch, candidates, stats);
+            for (Candidate c : candidates) {
+                accept(c, seen, sink, stats);
             }
 
-            for (int y = 0; y < i; y++) {
-                if (points[y].compareTo(points[i]) == 0) {
-                    throw new IllegalArgumentException("Equal points were found");
-                }
+            if (seen.size() > purgeAt) {
+                seen.purgeUpTo(points[i]);
+                purgeAt = Math.max(PURGE_THRESHOLD, 2 * seen.size());
             }
         }
     }
 
-    private void findSegments(Point[] points) {
-        Arrays.sort(points);
+    private static void findSegments(Point[] points, ForkJoinPool pool, SegmentSink sink, CollinearStats stats) {
+        int origins = Math.max(0, points.length - 1);
+        int threshold = Math.max(1, origins / (pool.getParallelism() * TASKS_PER_THREAD));
+        List<Candidate> candidates = pool.invoke(new ScanTask(points, 0, origins, threshold, stats));
 
-        Queue<LineSegmentWithEnd> segments = new Queue<>();
-        for (int i = 0; i < points.length - 1; i++) {
-            Point[] sortedPoints = new Point[points.length - i - 1];
-            System.arraycopy(points, i + 1, sortedPoints, 0, points.length - i - 1);
-            Arrays.sort(sortedPoints, points[i].slopeOrder());
-
-            for (int j = 0; j < sortedPoints.length - 2;) {
-                double curSlope = sortedPoints[j].slopeTo(points[i]);
-                if (curSlope == sortedPoints[j + 1].slopeTo(points[i])
-                        && curSlope == sortedPoints[j + 2].slopeTo(points[i])) {
-
-                    while (j < sortedPoints.length && curSlope == sortedPoints[j].slopeTo(points[i])) {
-                        j++;
-                    }
-
-                    addSegment(segments, curSlope, points[i], sortedPoints[j - 1]);
-                } else {
-                    j++;
+        // candidates arrive in origin order, so deduplicating them in
+        // sequence gives the same segments, in the same order, as
+        // streamSegments()
+        PointPairSet seen = new PointPairSet(candidates.size());
+        for (Candidate c : candidates) {
+            accept(c, seen, sink, stats);
+        }
+    }
+
+    private static void accept(Candidate c, PointPairSet seen, SegmentSink sink, CollinearStats stats) {
+        boolean kept = seen.add(c.penultimate, c.end);
+        if (stats != null) {
+            stats.addCandidate(kept);
+        }
+        if (kept) {
+            sink.accept(c.start, c.end);
+        }
+    }
+
+    /**
+     * Collects the runs of three or more equal slopes seen from each origin
+     * in [from, to), reusing a single scratch array for all of them.
+     */
+    private static List<Candidate> scanOrigins(Point[] points, int from, int to, CollinearStats stats) {
+        List<Candidate> candidates = new ArrayList<>();
+        Point[] scratch = new Point[points.length - from];
+
+        for (int i = from; i < to; i++) {
+            scanOrigin(points, i, scratch, candidates, stats);
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Adds a candidate for every run of three or more equal slopes seen from
+     * points[i] towards the later points.
+     *
+     * A line is identified by its last two points: every origin on it sees
+     * the same two at the end of its run, and the first origin to report the
+     * line is its smallest point.
+     */
+    private static void scanOrigin(Point[] points, int i, Point[] sortedPoints, List<Candidate> candidates,
+                                   CollinearStats stats) {
+        long start = stats == null ? 0 : System.nanoTime();
+        Point origin = points[i];
+        Comparator<Point> order = stats == null ? origin.slopeOrder() : stats.countingSlopeOrder(origin);
+
+        int len = points.length - i - 1;
+        System.arraycopy(points, i + 1, sortedPoints, 0, len);
+        Arrays.sort(sortedPoints, 0, len, order);
+
+        int compares = 0;
+        for (int j = 0; j < len - 2;) {
+            // sorted by slope, so j and j + 2 agree only if j + 1 does too
+            if (stats != null) {
+                compares++;
+            }
+            if (origin.compareSlopes(sortedPoints[j], sortedPoints[j + 2]) == 0) {
+                int end = j + 3;
+                while (end < len && origin.compareSlopes(sortedPoints[j], sortedPoints[end]) == 0) {
+                    end++;
                 }
+                if (stats != null) {
+                    // one per extra point, plus the one that ended the run
+                    compares += end - (j + 3) + (end < len ? 1 : 0);
+                }
+
+                candidates.add(new Candidate(origin, sortedPoints[end - 2], sortedPoints[end - 1]));
+                j = end;
+            } else {
+                j++;
             }
         }
 
-        saveSegments(segments);
+        if (stats != null) {
+            stats.addSlopeComparisons(compares);
+            stats.recordOrigin(i, System.nanoTime() - start);
+        }
     }
 
-    private void saveSegments(Queue<LineSegmentWithEnd> segments) {
-        lineSegments = new LineSegment[segments.size()];
-        int pos = 0;
-        for (LineSegmentWithEnd ls : segments) {
-            lineSegments[pos++] = ls.ls;
+    private static class Candidate {
+        private final Point start;
+        private final Point penultimate;
+        private final Point end;
+
+        public Candidate(Point start, Point penultimate, Point end) {
+            this.start = start;
+            this.penultimate = penultimate;
+            this.end = end;
         }
     }
 
-    private void addSegment(Queue<LineSegmentWithEnd> segments, double curSlope,
-                            Point startPoint, Point endPoint) {
-        LineSegment ls = new LineSegment(startPoint, endPoint);
-        if (segments.isEmpty()) {
-            segments.enqueue(new LineSegmentWithEnd(ls, endPoint, curSlope));
-        } else {
-            boolean has = false;
-            for (LineSegmentWithEnd lswe : segments) {
-                if (lswe.end == endPoint && lswe.slope == curSlope) {
-                    has = true;
-                    break;
+    /**
+     * An open-addressing set of point pairs keyed on their coordinates, so a
+     * candidate is checked in O(1) expected time without boxing.
+     */
+    private static class PointPairSet {
+        private long[] firsts;
+        private long[] seconds;
+        private boolean[] used;
+        private int size;
+
+        public PointPairSet(int expectedSize) {
+            allocate(LongHashSet.capacityFor(expectedSize));
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Adds the pair and returns true if it was not already present.
+         */
+        public boolean add(Point p, Point q) {
+            if (2 * (size + 1) > used.length) {
+                rehash(used.length * 2, Long.MIN_VALUE);
+            }
+
+            return insert(pack(p), pack(q));
+        }
+
+        /**
+         * Drops every pair whose first point is not after p. Once the scan
+         * has passed an origin, no later origin can see it as a penultimate.
+         */
+        public void purgeUpTo(Point p) {
+            rehash(used.length, pack(p));
+        }
+
+        private boolean insert(long first, long second) {
+            int mask = used.length - 1;
+            int i = LongHashSet.mix(first * 31 + second) & mask;
+            while (used[i]) {
+                if (firsts[i] == first && seconds[i] == second) {
+                    return false;
                 }
+                i = (i + 1) & mask;
             }
 
-            if (!has) {
-                segments.enqueue(new LineSegmentWithEnd(ls, endPoint, curSlope));
+            used[i] = true;
+            firsts[i] = first;
+            seconds[i] = second;
+            size++;
+            return true;
+        }
+
+        private void rehash(int capacity, long keepAfter) {
+            long[] oldFirsts = firsts;
+            long[] oldSeconds = seconds;
+            boolean[] oldUsed = used;
+
+            allocate(capacity);
+            for (int i = 0; i < oldUsed.length; i++) {
+                if (oldUsed[i] && oldFirsts[i] > keepAfter) {
+                    insert(oldFirsts[i], oldSeconds[i]);
+                }
             }
         }
+
+        private void allocate(int capacity) {
+            firsts = new long[capacity];
+            seconds = new long[capacity];
+            used = new boolean[capacity];
+            size = 0;
+        }
+
+        // orders packed points like Point.compareTo(): y first, then x
+        private static long pack(Point p) {
+            return (long) p.y() << 32 | ((p.x() ^ Integer.MIN_VALUE) & 0xffffffffL);
+        }
     }
 
-    private class LineSegmentWithEnd {
-        private final LineSegment ls;
-        private final Point end;
-        private final double slope;
+    private static class ScanTask extends RecursiveTask<List<Candidate>> {
+        private static final long serialVersionUID = 1L;
 
-        public LineSegmentWithEnd(LineSegment ls, Point end, double slope) {
-            this.ls = ls;
-            this.end = end;
-            this.slope = slope;
+        private final Point[] points;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final CollinearStats stats;
+
+        public ScanTask(Point[] points, int from, int to, int threshold, CollinearStats stats) {
+            this.points = points;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.stats = stats;
+        }
+
+        @Override
+        protected List<Candidate> compute() {
+            if (to - from <= threshold) {
+                return scanOrigins(points, from, to, stats);
+            }
+
+            int mid = (from + to) >>> 1;
+            ScanTask left = new ScanTask(points, from, mid, threshold, stats);
+            left.fork();
+            List<Candidate> right = new ScanTask(points, mid, to, threshold, stats).compute();
+
+            List<Candidate> merged = left.join();
+            merged.addAll(right);
+            return merged;
         }
     }
 
     public static void main(String[] args) {
-        // read the n points from a file
-        In in = new In(args[0]);
-        int n = in.readInt();
-        Point[] points = new Point[n];
-        for (int i = 0; i < n; i++) {
-            int x = in.readInt();
-            int y = in.readInt();
-            points[i] = new Point(x, y);
+        // read the n points from a text or binary point file
+        Point[] points = PointFile.read(args[0]).toPoints();
+
+        // with an output file, render headlessly to a PNG instead of StdDraw
+        if (args.length > 1) {
+            FastCollinearPoints collinear = new FastCollinearPoints(points);
+            for (LineSegment segment : collinear.segments()) {
+                StdOut.println(segment);
+            }
+
+            CollinearRenderer renderer = new CollinearRenderer(args.length > 2 ? Integer.parseInt(args[2]) : 1024);
+            collinear.forEachSegment(renderer);
+            renderer.drawPoints(points);
+            renderer.writePng(args[1]);
+            return;
         }
 
         // draw the points
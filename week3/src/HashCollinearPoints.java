@@ -0,0 +1,106 @@
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the same segments as FastCollinearPoints in O(n^2) expected time.
+ * Instead of sorting each origin's later points by slope, it counts them per
+ * exact direction key (see Directions) in a primitive hash map, remembering
+ * the last two points seen in each direction. Those runs then go through
+ * the same dedup and slope order as CollinearLines (see DirectionRuns), so
+ * coordinates must lie in 0..32767.
+ */
+public class HashCollinearPoints implements CollinearFinder {
+
+    private LineSegment[] lineSegments;
+
+    public HashCollinearPoints(Point[] points) {
+        findSegments(PackedCollinearPoints.sortGridPoints(points));
+    }
+
+    @Override
+    public int numberOfSegments() {
+        return lineSegments.length;
+    }
+
+    @Override
+    public LineSegment[] segments() {
+        LineSegment[] ls = new LineSegment[lineSegments.length];
+        System.arraycopy(lineSegments, 0, ls, 0, lineSegments.length);
+        return ls;
+    }
+
+    private void findSegments(Point[] sorted) {
+        int n = sorted.length;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = sorted[i].x();
+            ys[i] = sorted[i].y();
+        }
+
+        // per-direction groups of the current origin, indexed through groupOf
+        LongIntHashMap groupOf = new LongIntHashMap(n);
+        int[] directions = new int[n];
+        int[] counts = new int[n];
+        int[] penultimates = new int[n];
+        int[] lasts = new int[n];
+
+        DirectionRuns runs = new DirectionRuns();
+        LongHashSet seen = new LongHashSet();
+        List<LineSegment> found = new ArrayList<>();
+
+        for (int i = 0; i < n - 3; i++) {
+            groupOf.clear();
+            int groups = 0;
+
+            for (int j = i + 1; j < n; j++) {
+                int direction = Directions.of(xs[j] - xs[i], ys[j] - ys[i]);
+                int g = groupOf.get(direction, -1);
+                if (g < 0) {
+                    g = groups++;
+                    groupOf.put(direction, g);
+                    directions[g] = direction;
+                    counts[g] = 0;
+                }
+
+                counts[g]++;
+                penultimates[g] = lasts[g];
+                lasts[g] = j;
+            }
+
+            runs.clear();
+            for (int g = 0; g < groups; g++) {
+                if (counts[g] >= 3) {
+                    runs.add(directions[g], penultimates[g], lasts[g]);
+                }
+            }
+            runs.keepNew(seen);
+            runs.sortBySlope();
+
+            for (int r = 0; r < runs.size(); r++) {
+                found.add(new LineSegment(sorted[i], sorted[runs.last(r)]));
+            }
+        }
+
+        lineSegments = found.toArray(new LineSegment[found.size()]);
+    }
+
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        int n = in.readInt();
+        Point[] points = new Point[n];
+        for (int i = 0; i < n; i++) {
+            int x = in.readInt();
+            int y = in.readInt();
+            points[i] = new Point(x, y);
+        }
+
+        CollinearFinder collinear = new HashCollinearPoints(points);
+        for (LineSegment segment : collinear.segments()) {
+            StdOut.println(segment);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Approximate collinear search for inputs far too large for the exact
+ * O(n^2 log n) finders. It votes with randomly sampled pairs of points in a
+ * primitive accumulator keyed on the exact line through each pair
+ * (Directions.lineKey), which is a Hough transform without the rounding of
+ * a discretised (theta, rho) space. Lines that collect at least MIN_VOTES
+ * votes become candidates and are verified exactly against every point, so
+ * each reported segment is a true maximal line of at least minPoints
+ * points.
+ *
+ * Lines can be missed. With s sampled pairs, a line of m points out of n
+ * expects about s * m * (m - 1) / (n * (n - 1)) votes, so only long lines
+ * are reliably found: with the default of 4 samples per point, lines of a
+ * few times sqrt(n) points. Sampling and verification are both linear in n;
+ * verification costs one pass over the points per distinct candidate
+ * direction, and at most MAX_DIRECTIONS of them are kept.
+ *
+ * Coordinates must lie in 0..32767.
+ */
+public class HoughCollinearPoints implements CollinearFinder {
+
+    private static final int DEFAULT_SAMPLES_PER_POINT = 4;
+    private static final int MIN_VOTES = 2;
+    private static final int MAX_DIRECTIONS = 256;
+
+    private final Point[] sorted;
+    private final int[] xs;
+    private final int[] ys;
+    private final int minPoints;
+    private LineSegment[] lineSegments;
+
+    public HoughCollinearPoints(Point[] points) {
+        this(points, 4, DEFAULT_SAMPLES_PER_POINT, new SplittableRandom());
+    }
+
+    public HoughCollinearPoints(Point[] points, int minPoints, int samplesPerPoint, SplittableRandom random) {
+        if (minPoints < 3) {
+            throw new IllegalArgumentException("minPoints must be at least 3: " + minPoints);
+        }
+        if (samplesPerPoint < 1) {
+            throw new IllegalArgumentException("samplesPerPoint must be positive: " + samplesPerPoint);
+        }
+        if (random == null) {
+            throw new IllegalArgumentException("random source is null");
+        }
+
+        sorted = PackedCollinearPoints.sortGridPoints(points);
+        this.minPoints = minPoints;
+
+        int n = sorted.length;
+        xs = new int[n];
+        ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = sorted[i].x();
+            ys[i] = sorted[i].y();
+        }
+
+        long[] candidates = n < minPoints ? new long[0] : vote((long) samplesPerPoint * n, random);
+        verify(candidates);
+    }
+
+    @Override
+    public int numberOfSegments() {
+        return lineSegments.length;
+    }
+
+    @Override
+    public LineSegment[] segments() {
+        LineSegment[] ls = new LineSegment[lineSegments.length];
+        System.arraycopy(lineSegments, 0, ls, 0, lineSegments.length);
+        return ls;
+    }
+
+    /**
+     * Samples random pairs and returns the keys of the lines that reached
+     * MIN_VOTES, strongest first, limited to MAX_DIRECTIONS directions.
+     */
+    private long[] vote(long samples, SplittableRandom random) {
+        int n = xs.length;
+        LongIntHashMap votes = new LongIntHashMap();
+        long[] candidates = new long[16];
+        int count = 0;
+
+        for (long s = 0; s < samples; s++) {
+            int i = random.nextInt(n);
+            int j = random.nextInt(n - 1);
+            if (j >= i) {
+                j++;
+            }
+
+            int direction = Directions.of(xs[j] - xs[i], ys[j] - ys[i]);
+            long key = Directions.lineKey(direction, xs[i], ys[i]);
+            int v = votes.get(key, 0) + 1;
+            votes.put(key, v);
+
+            if (v == MIN_VOTES) {
+                if (count == candidates.length) {
+                    candidates = Arrays.copyOf(candidates, count * 2);
+                }
+                candidates[count++] = key;
+            }
+        }
+
+        // strongest first: votes in the high half, candidate index in the low
+        long[] ranked = new long[count];
+        for (int c = 0; c < count; c++) {
+            ranked[c] = (long) votes.get(candidates[c], 0) << 32 | c;
+        }
+        Arrays.sort(ranked);
+
+        LongHashSet directions = new LongHashSet();
+        long[] strongest = new long[count];
+        int kept = 0;
+        for (int r = count - 1; r >= 0; r--) {
+            long key = candidates[(int) ranked[r]];
+            long direction = key >>> 32;
+            if (directions.contains(direction) || directions.size() < MAX_DIRECTIONS) {
+                directions.add(direction);
+                strongest[kept++] = key;
+            }
+        }
+
+        return Arrays.copyOf(strongest, kept);
+    }
+
+    /**
+     * Counts the points on every candidate line exactly, one pass over the
+     * points per candidate direction, and keeps the lines with at least
+     * minPoints points.
+     */
+    private void verify(long[] candidates) {
+        // grouping by direction: it sits in the high bits of the line key
+        Arrays.sort(candidates);
+
+        int lines = candidates.length;
+        LongIntHashMap slotOf = new LongIntHashMap(lines);
+        for (int c = 0; c < lines; c++) {
+            slotOf.put(candidates[c], c);
+        }
+
+        int[] counts = new int[lines];
+        int[] firsts = new int[lines];
+        int[] lasts = new int[lines];
+
+        for (int c = 0; c < lines;) {
+            int direction = (int) (candidates[c] >>> 32);
+            for (int p = 0; p < xs.length; p++) {
+                int slot = slotOf.get(Directions.lineKey(direction, xs[p], ys[p]), -1);
+                if (slot >= 0) {
+                    // points come in natural order, so the first one seen is the smallest
+                    if (counts[slot]++ == 0) {
+                        firsts[slot] = p;
+                    }
+                    lasts[slot] = p;
+                }
+            }
+
+            while (c < lines && (int) (candidates[c] >>> 32) == direction) {
+                c++;
+            }
+        }
+
+        // report by smallest point, then by slope, as FastCollinearPoints does
+        long[] found = new long[lines];
+        int m = 0;
+        for (int c = 0; c < lines; c++) {
+            if (counts[c] >= minPoints) {
+                found[m++] = (long) firsts[c] << 32 | c;
+            }
+        }
+        Arrays.sort(found, 0, m);
+
+        lineSegments = new LineSegment[m];
+        int[] runDirections = new int[m];
+        int[] runSlots = new int[m];
+        for (int a = 0; a < m;) {
+            int first = (int) (found[a] >>> 32);
+            int b = a;
+            while (b < m && (int) (found[b] >>> 32) == first) {
+                runSlots[b - a] = (int) found[b];
+                runDirections[b - a] = (int) (candidates[(int) found[b]] >>> 32);
+                b++;
+            }
+
+            Directions.sortBySlope(runDirections, runSlots, b - a);
+            for (int r = 0; r < b - a; r++) {
+                lineSegments[a + r] = new LineSegment(sorted[first], sorted[lasts[runSlots[r]]]);
+            }
+            a = b;
+        }
+    }
+
+    /**
+     * java HoughCollinearPoints input.txt [samplesPerPoint] [seed]
+     */
+    public static void main(String[] args) {
+        Point[] points = PointFile.read(args[0]).toPoints();
+        int samplesPerPoint = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SAMPLES_PER_POINT;
+        SplittableRandom random = args.length > 2 ? new SplittableRandom(Long.parseLong(args[2])) : new SplittableRandom();
+
+        HoughCollinearPoints collinear = new HoughCollinearPoints(points, 4, samplesPerPoint, random);
+        for (LineSegment segment : collinear.segments()) {
+            StdOut.println(segment);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A dynamic set of points that keeps every line of four or more of them up to
+ * date. Inserting or removing a point only looks at the lines through that
+ * point: the other points are grouped by exact direction from it (see
+ * Directions) in a primitive hash map, so an update costs O(n) expected time.
+ * numberOfSegments() is O(1), and segments() rebuilds its array only after
+ * the set of lines has changed.
+ *
+ * Coordinates must lie in 0..32767.
+ */
+public class IncrementalCollinearPoints implements CollinearFinder {
+
+    private static final int MIN_POINTS = 4;
+
+    private Point[] points = new Point[16];
+    private int[] keys = new int[16];       // PackedPoint keys
+    private int n;
+    private final PointIntMap indexOf = new PointIntMap();
+
+    private final List<Line> lines = new ArrayList<>();
+    private final LongIntHashMap lineIndexOf = new LongIntHashMap();
+    private LineSegment[] snapshot = new LineSegment[0];
+
+    // per-update grouping of the other points by direction
+    private final LongIntHashMap groupOf = new LongIntHashMap();
+    private int[] groupDirections = new int[16];
+    private int[] groupCounts = new int[16];
+    private int[] groupMins = new int[16];
+    private int[] groupMaxes = new int[16];
+    private int groups;
+
+    public IncrementalCollinearPoints() { }
+
+    public IncrementalCollinearPoints(Point[] points) {
+        if (points == null) {
+            throw new IllegalArgumentException("Input argument is null");
+        }
+
+        for (Point p : points) {
+            if (!insert(p)) {
+                throw new IllegalArgumentException("Equal points were found");
+            }
+        }
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public boolean contains(Point p) {
+        return indexOf.containsKey(p);
+    }
+
+    /**
+     * Adds the point and updates the lines through it.
+     *
+     * @return false if the point was already present
+     */
+    public boolean insert(Point p) {
+        if (indexOf.containsKey(p)) {
+            return false;
+        }
+        int key = PackedPoint.pack(p);
+
+        groupOthers(p.x(), p.y());
+        for (int g = 0; g < groups; g++) {
+            if (groupCounts[g] + 1 >= MIN_POINTS) {
+                long lineKey = Directions.lineKey(groupDirections[g], p.x(), p.y());
+                putLine(lineKey, groupCounts[g] + 1,
+                        Math.min(groupMins[g], key), Math.max(groupMaxes[g], key));
+            }
+        }
+
+        if (n == keys.length) {
+            keys = Arrays.copyOf(keys, n * 2);
+            points = Arrays.copyOf(points, n * 2);
+        }
+        keys[n] = key;
+        points[n] = p;
+        indexOf.put(p, n);
+        n++;
+
+        return true;
+    }
+
+    /**
+     * Removes the point and updates the lines through it.
+     *
+     * @return false if the point was not present
+     */
+    public boolean remove(Point p) {
+        int i = indexOf.get(p, -1);
+        if (i < 0) {
+            return false;
+        }
+
+        n--;
+        keys[i] = keys[n];
+        points[i] = points[n];
+        points[n] = null;
+        indexOf.remove(p);
+        if (i != n) {
+            indexOf.put(points[i], i);
+        }
+
+        groupOthers(p.x(), p.y());
+        for (int g = 0; g < groups; g++) {
+            // these lines had at least MIN_POINTS points including p
+            if (groupCounts[g] + 1 >= MIN_POINTS) {
+                long lineKey = Directions.lineKey(groupDirections[g], p.x(), p.y());
+                if (groupCounts[g] >= MIN_POINTS) {
+                    putLine(lineKey, groupCounts[g], groupMins[g], groupMaxes[g]);
+                } else {
+                    removeLine(lineKey);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int numberOfSegments() {
+        return lines.size();
+    }
+
+    @Override
+    public LineSegment[] segments() {
+        if (snapshot == null) {
+            snapshot = new LineSegment[lines.size()];
+            for (int i = 0; i < snapshot.length; i++) {
+                Line line = lines.get(i);
+                snapshot[i] = new LineSegment(pointAt(line.min), pointAt(line.max));
+            }
+        }
+
+        LineSegment[] ls = new LineSegment[snapshot.length];
+        System.arraycopy(snapshot, 0, ls, 0, snapshot.length);
+        return ls;
+    }
+
+    /**
+     * Groups every point currently in the set, other than (x, y) itself, by
+     * its direction from (x, y), tracking the count and the smallest and
+     * largest point key of each group.
+     */
+    private void groupOthers(int x, int y) {
+        groupOf.clear();
+        groups = 0;
+
+        for (int i = 0; i < n; i++) {
+            int qx = PackedPoint.x(keys[i]);
+            int qy = PackedPoint.y(keys[i]);
+            if (qx == x && qy == y) {
+                continue;
+            }
+
+            int direction = Directions.of(qx - x, qy - y);
+            int g = groupOf.get(direction, -1);
+            if (g < 0) {
+                if (groups == groupDirections.length) {
+                    growGroups();
+                }
+                g = groups++;
+                groupOf.put(direction, g);
+                groupDirections[g] = direction;
+                groupCounts[g] = 0;
+                groupMins[g] = keys[i];
+                groupMaxes[g] = keys[i];
+            }
+
+            groupCounts[g]++;
+            groupMins[g] = Math.min(groupMins[g], keys[i]);
+            groupMaxes[g] = Math.max(groupMaxes[g], keys[i]);
+        }
+    }
+
+    private void putLine(long lineKey, int count, int min, int max) {
+        int i = lineIndexOf.get(lineKey, -1);
+        if (i < 0) {
+            lineIndexOf.put(lineKey, lines.size());
+            lines.add(new Line(lineKey, count, min, max));
+            snapshot = null;
+            return;
+        }
+
+        Line line = lines.get(i);
+        line.count = count;
+        if (line.min != min || line.max != max) {
+            line.min = min;
+            line.max = max;
+            snapshot = null;
+        }
+    }
+
+    private void removeLine(long lineKey) {
+        int i = lineIndexOf.get(lineKey, -1);
+        lineIndexOf.remove(lineKey);
+
+        int last = lines.size() - 1;
+        Line moved = lines.remove(last);
+        if (i != last) {
+            lines.set(i, moved);
+            lineIndexOf.put(moved.key, i);
+        }
+        snapshot = null;
+    }
+
+    private Point pointAt(int key) {
+        return points[indexOf.get(PackedPoint.x(key), PackedPoint.y(key), -1)];
+    }
+
+    private void growGroups() {
+        int capacity = groupDirections.length * 2;
+        groupDirections = Arrays.copyOf(groupDirections, capacity);
+        groupCounts = Arrays.copyOf(groupCounts, capacity);
+        groupMins = Arrays.copyOf(groupMins, capacity);
+        groupMaxes = Arrays.copyOf(groupMaxes, capacity);
+    }
+
+    private static class Line {
+        private final long key;
+        private int count;
+        private int min;
+        private int max;
+
+        public Line(long key, int count, int min, int max) {
+            this.key = key;
+            this.count = count;
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        int n = in.readInt();
+        Point[] points = new Point[n];
+        for (int i = 0; i < n; i++) {
+            int x = in.readInt();
+            int y = in.readInt();
+            points[i] = new Point(x, y);
+        }
+
+        IncrementalCollinearPoints collinear = new IncrementalCollinearPoints();
+        for (Point p : points) {
+            collinear.insert(p);
+        }
+        StdOut.println(collinear.numberOfSegments() + " segments");
+
+        for (int i = 0; i < n; i += 2) {
+            collinear.remove(points[i]);
+        }
+        StdOut.println(collinear.numberOfSegments() + " segments after removing every other point");
+
+        for (LineSegment segment : collinear.segments()) {
+            StdOut.println(segment);
+        }
+    }
+}
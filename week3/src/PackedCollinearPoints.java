@@ -0,0 +1,92 @@
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+
+/**
+ * Finds the same segments as FastCollinearPoints, in the same order, but keeps
+ * coordinates in int arrays and sorts each origin's neighbours as packed
+ * longs: the exact direction key (see Directions) in the high half and the
+ * point index in the low half. This is CollinearLines with lines of at least
+ * four points, so coordinates must lie in 0..32767.
+ */
+public class PackedCollinearPoints implements CollinearFinder {
+
+    private final LineSegment[] lineSegments;
+
+    public PackedCollinearPoints(Point[] points) {
+        lineSegments = new CollinearLines(points, 4).segments();
+    }
+
+    /**
+     * Validates points of the 0..32767 grid and returns them in natural order,
+     * sorting primitive keys rather than Point references.
+     */
+    static Point[] sortGridPoints(Point[] points) {
+        int[] order = sortGridOrder(points);
+
+        Point[] sorted = new Point[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = points[order[i]];
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Validates points of the 0..32767 grid and returns their indices in the
+     * natural order of the points.
+     */
+    static int[] sortGridOrder(Point[] points) {
+        if (points == null) {
+            throw new IllegalArgumentException("Input argument is null");
+        }
+
+        int n = points.length;
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            // packed keys sort exactly like Point.compareTo()
+            long packed = PackedPoint.pack(points[i]);
+            keys[i] = packed << 32 | i;
+        }
+        Arrays.sort(keys);
+
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && keys[i] >>> 32 == keys[i - 1] >>> 32) {
+                throw new IllegalArgumentException("Equal points were found");
+            }
+            order[i] = (int) keys[i];
+        }
+
+        return order;
+    }
+
+    @Override
+    public int numberOfSegments() {
+        return lineSegments.length;
+    }
+
+    @Override
+    public LineSegment[] segments() {
+        LineSegment[] ls = new LineSegment[lineSegments.length];
+        System.arraycopy(lineSegments, 0, ls, 0, lineSegments.length);
+        return ls;
+    }
+
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        int n = in.readInt();
+        Point[] points = new Point[n];
+        for (int i = 0; i < n; i++) {
+            int x = in.readInt();
+            int y = in.readInt();
+            points[i] = new Point(x, y);
+        }
+
+        PackedCollinearPoints collinear = new PackedCollinearPoints(points);
+        for (LineSegment segment : collinear.segments()) {
+            StdOut.println(segment);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Points of the 0..32767 grid packed into one int key, y in bits 15..29
+ * and x in bits 0..14. Keys order exactly like Point.compareTo(), so sorting
+ * keys sorts points, and they can go straight into primitive hash maps such
+ * as PointIntMap or LongIntHashMap.
+ *
+ * Only the key helpers live here. Point itself has value semantics through
+ * equals() and hashCode(), so there is no separate packed point object, and
+ * a set of points is a LongHashSet of keys.
+ */
+public final class PackedPoint {
+
+    private PackedPoint() { }
+
+    /**
+     * Returns the key of (x, y), checking that both lie in 0..32767.
+     */
+    public static int pack(int x, int y) {
+        if (!Directions.inRange(x, y)) {
+            throw new IllegalArgumentException("Coordinates out of range: (" + x + ", " + y + ")");
+        }
+        return y << 15 | x;
+    }
+
+    public static int pack(Point p) {
+        if (p == null) {
+            throw new IllegalArgumentException("Null is prohibited");
+        }
+        return pack(p.x(), p.y());
+    }
+
+    public static int x(int key) {
+        return key & Directions.MAX_COORDINATE;
+    }
+
+    public static int y(int key) {
+        return key >>> 15;
+    }
+}
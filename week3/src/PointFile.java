@@ -0,0 +1,210 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Loads point files like the ones in collinear/ by memory-mapping them and
+ * parsing the ASCII integers straight from the mapped bytes into int arrays,
+ * without Scanner or any per-token objects.
+ *
+ * The same points can be saved in a binary format (magic, count, then x/y
+ * pairs as big-endian ints) that read() recognises and loads with one bulk
+ * copy, which pays off when a large input is used over and over.
+ */
+public class PointFile {
+
+    private static final int MAGIC = 0x50544631;     // "PTF1"
+    private static final int HEADER_BYTES = 8;
+
+    private final int[] xs;
+    private final int[] ys;
+
+    private PointFile(int[] xs, int[] ys) {
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    /**
+     * Reads a text file (a count followed by that many x y pairs) or a file
+     * written by writeBinary(), telling them apart by the leading magic.
+     */
+    public static PointFile read(String path) {
+        if (path == null) {
+            throw new IllegalArgumentException("Path is null");
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("File is too large to map: " + path);
+            }
+
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size >= HEADER_BYTES && buf.getInt(0) == MAGIC) {
+                return readBinary(buf, path);
+            }
+            return readText(buf, path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int size() {
+        return xs.length;
+    }
+
+    public int x(int i) {
+        return xs[i];
+    }
+
+    public int y(int i) {
+        return ys[i];
+    }
+
+    public Point[] toPoints() {
+        Point[] points = new Point[xs.length];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Point(xs[i], ys[i]);
+        }
+        return points;
+    }
+
+    public void writeBinary(String path) {
+        if (path == null) {
+            throw new IllegalArgumentException("Path is null");
+        }
+
+        try (OutputStream os = Files.newOutputStream(Paths.get(path));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+            out.writeInt(MAGIC);
+            out.writeInt(xs.length);
+            for (int i = 0; i < xs.length; i++) {
+                out.writeInt(xs[i]);
+                out.writeInt(ys[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static PointFile readBinary(MappedByteBuffer buf, String path) {
+        int n = buf.getInt(4);
+        if (n < 0 || (buf.limit() - HEADER_BYTES) / 8 < n) {
+            throw new IllegalArgumentException("Truncated point file: " + path);
+        }
+
+        buf.position(HEADER_BYTES);
+        IntBuffer ints = buf.order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+        int[] pairs = new int[2 * n];
+        ints.get(pairs);
+
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = pairs[2 * i];
+            ys[i] = pairs[2 * i + 1];
+        }
+
+        return new PointFile(xs, ys);
+    }
+
+    private static PointFile readText(MappedByteBuffer buf, String path) {
+        Parser parser = new Parser(buf, path);
+        int n = parser.nextInt();
+        if (n < 0) {
+            throw new IllegalArgumentException("Negative point count in " + path);
+        }
+
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = parser.nextInt();
+            ys[i] = parser.nextInt();
+        }
+
+        return new PointFile(xs, ys);
+    }
+
+    /**
+     * Reads whitespace-separated decimal ints from a mapped buffer.
+     */
+    private static class Parser {
+        private final MappedByteBuffer buf;
+        private final String path;
+        private final int limit;
+        private int pos;
+
+        public Parser(MappedByteBuffer buf, String path) {
+            this.buf = buf;
+            this.path = path;
+            this.limit = buf.limit();
+        }
+
+        public int nextInt() {
+            while (pos < limit && isSpace(buf.get(pos))) {
+                pos++;
+            }
+            if (pos == limit) {
+                throw new IllegalArgumentException("Unexpected end of " + path);
+            }
+
+            boolean negative = buf.get(pos) == '-';
+            if (negative) {
+                pos++;
+            }
+
+            int start = pos;
+            long value = 0;
+            while (pos < limit) {
+                int d = buf.get(pos) - '0';
+                if (d < 0 || d > 9) {
+                    break;
+                }
+                value = value * 10 + d;
+                if (value > (long) Integer.MAX_VALUE + 1) {
+                    throw new IllegalArgumentException("Integer out of range at byte " + start + " of " + path);
+                }
+                pos++;
+            }
+
+            if (pos == start || (pos < limit && !isSpace(buf.get(pos)))) {
+                throw new IllegalArgumentException("Malformed integer at byte " + start + " of " + path);
+            }
+            if (!negative && value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Integer out of range at byte " + start + " of " + path);
+            }
+
+            return (int) (negative ? -value : value);
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+        }
+    }
+
+    /**
+     * Converts a text point file to the binary format:
+     * java PointFile input.txt input.bin
+     */
+    public static void main(String[] args) {
+        long start = System.nanoTime();
+        PointFile file = read(args[0]);
+        StdOut.printf("read %d points in %.1f ms%n", file.size(), (System.nanoTime() - start) / 1e6);
+
+        if (args.length > 1) {
+            file.writeBinary(args[1]);
+            StdOut.println("wrote " + args[1]);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * A map from points of the 0..32767 grid to primitive ints, keyed on their
+ * packed form (see PackedPoint) in a LongIntHashMap.
+ */
+public class PointIntMap {
+
+    private final LongIntHashMap map;
+
+    public PointIntMap() {
+        this(16);
+    }
+
+    public PointIntMap(int expectedSize) {
+        map = new LongIntHashMap(expectedSize);
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean containsKey(Point p) {
+        return map.containsKey(PackedPoint.pack(p));
+    }
+
+    /**
+     * Returns the value for the point, or {@code missing} if there is none.
+     */
+    public int get(Point p, int missing) {
+        return map.get(PackedPoint.pack(p), missing);
+    }
+
+    public int get(int x, int y, int missing) {
+        return map.get(PackedPoint.pack(x, y), missing);
+    }
+
+    public void put(Point p, int value) {
+        map.put(PackedPoint.pack(p), value);
+    }
+
+    public boolean remove(Point p) {
+        return map.remove(PackedPoint.pack(p));
+    }
+
+    public void clear() {
+        map.clear();
+    }
+}
@@ -0,0 +1,141 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An exhaustive search like BruteCollinearPoints that still checks every
+ * pair of points against every later point, but reports maximal segments of
+ * any length, exactly as FastCollinearPoints does, so it can serve as a
+ * correctness oracle on small inputs.
+ *
+ * It is much faster than the plain brute force: coordinates live in long
+ * arrays and collinearity is an exact cross-product test, nothing is
+ * allocated per pair, a pair's scan stops as soon as the remaining points
+ * can no longer make up a segment, and the pairs of every reported line are
+ * marked in a bitset so they are never scanned again.
+ */
+public class PrunedBruteCollinearPoints implements CollinearFinder {
+
+    private static final int SEGMENT_LEN = 4;
+
+    private LineSegment[] lineSegments;
+
+    public PrunedBruteCollinearPoints(Point[] points) {
+        findSegments(CollinearInput.sortedCopy(points, false, null));
+    }
+
+    @Override
+    public int numberOfSegments() {
+        return lineSegments.length;
+    }
+
+    @Override
+    public LineSegment[] segments() {
+        LineSegment[] ls = new LineSegment[lineSegments.length];
+        System.arraycopy(lineSegments, 0, ls, 0, lineSegments.length);
+        return ls;
+    }
+
+    private void findSegments(Point[] points) {
+        int n = points.length;
+        long[] xs = new long[n];
+        long[] ys = new long[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = points[i].x();
+            ys[i] = points[i].y();
+        }
+
+        // one bit per pair i < j, at index j * (j - 1) / 2 + i
+        long pairs = (long) n * (n - 1) / 2;
+        long[] covered = new long[(int) ((pairs + 63) >>> 6)];
+        int[] members = new int[n];
+        Point[] ends = new Point[4];
+        List<LineSegment> found = new ArrayList<>();
+
+        for (int i = 0; i <= n - SEGMENT_LEN; i++) {
+            int lines = 0;
+
+            for (int j = i + 1; j <= n - SEGMENT_LEN + 1; j++) {
+                // a covered pair lies on a line that an earlier pair has
+                // already reported in full
+                if (isCovered(covered, i, j)) {
+                    continue;
+                }
+
+                long dx = xs[j] - xs[i];
+                long dy = ys[j] - ys[i];
+                int m = 0;
+                members[m++] = i;
+                members[m++] = j;
+
+                for (int k = j + 1; k < n; k++) {
+                    if (m + n - k < SEGMENT_LEN) {
+                        break;
+                    }
+                    if (sameDirection(dx, dy, xs[k] - xs[i], ys[k] - ys[i])) {
+                        members[m++] = k;
+                    }
+                }
+
+                if (m >= SEGMENT_LEN) {
+                    cover(covered, members, m);
+                    if (lines == ends.length) {
+                        ends = Arrays.copyOf(ends, lines * 2);
+                    }
+                    ends[lines++] = points[members[m - 1]];
+                }
+            }
+
+            // list the lines of each origin by slope, as FastCollinearPoints does
+            Arrays.sort(ends, 0, lines, points[i].slopeOrder());
+            for (int l = 0; l < lines; l++) {
+                found.add(new LineSegment(points[i], ends[l]));
+            }
+        }
+
+        lineSegments = found.toArray(new LineSegment[found.size()]);
+    }
+
+    /**
+     * Returns true if (dx1, dy1) and (dx2, dy2) are parallel, exactly, for
+     * components of up to 32 bits. The products can overflow a long, so
+     * equal low 64 bits are confirmed with doubles: products that differ
+     * while agreeing in the low 64 bits are at least 2^64 apart, far more
+     * than the rounding of either double.
+     */
+    private static boolean sameDirection(long dx1, long dy1, long dx2, long dy2) {
+        if (dx1 * dy2 != dy1 * dx2) {
+            return false;
+        }
+        return Math.abs((double) dx1 * dy2 - (double) dy1 * dx2) < 0x1p63;
+    }
+
+    private static boolean isCovered(long[] covered, int i, int j) {
+        long bit = (long) j * (j - 1) / 2 + i;
+        return (covered[(int) (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Marks every pair of the given members, which are in increasing order.
+     */
+    private static void cover(long[] covered, int[] members, int m) {
+        for (int b = 1; b < m; b++) {
+            long row = (long) members[b] * (members[b] - 1) / 2;
+            for (int a = 0; a < b; a++) {
+                long bit = row + members[a];
+                covered[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        Point[] points = PointFile.read(args[0]).toPoints();
+
+        PrunedBruteCollinearPoints collinear = new PrunedBruteCollinearPoints(points);
+        for (LineSegment segment : collinear.segments()) {
+            StdOut.println(segment);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.Arrays;
+
+/**
+ * A compact SegmentSink that keeps the endpoints of every segment it
+ * receives in one int array, four coordinates per segment, instead of a
+ * LineSegment and two Point references each.
+ */
+public class SegmentBuffer implements SegmentSink {
+
+    private int[] coords = new int[4 * 16];
+    private int size;
+
+    @Override
+    public void accept(Point start, Point end) {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("Null is prohibited");
+        }
+
+        add(start.x(), start.y(), end.x(), end.y());
+    }
+
+    public void add(int startX, int startY, int endX, int endY) {
+        if (4 * size == coords.length) {
+            coords = Arrays.copyOf(coords, coords.length * 2);
+        }
+
+        int i = 4 * size++;
+        coords[i] = startX;
+        coords[i + 1] = startY;
+        coords[i + 2] = endX;
+        coords[i + 3] = endY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int startX(int segment) {
+        return coords[4 * check(segment)];
+    }
+
+    public int startY(int segment) {
+        return coords[4 * check(segment) + 1];
+    }
+
+    public int endX(int segment) {
+        return coords[4 * check(segment) + 2];
+    }
+
+    public int endY(int segment) {
+        return coords[4 * check(segment) + 3];
+    }
+
+    public LineSegment segment(int segment) {
+        int i = 4 * check(segment);
+        return new LineSegment(new Point(coords[i], coords[i + 1]), new Point(coords[i + 2], coords[i + 3]));
+    }
+
+    public LineSegment[] toSegments() {
+        LineSegment[] ls = new LineSegment[size];
+        for (int i = 0; i < size; i++) {
+            ls[i] = segment(i);
+        }
+        return ls;
+    }
+
+    /**
+     * Replays the buffered segments, in the order they were added, into
+     * another sink.
+     */
+    public void replay(SegmentSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Sink is null");
+        }
+
+        for (int i = 0; i < 4 * size; i += 4) {
+            sink.accept(new Point(coords[i], coords[i + 1]), new Point(coords[i + 2], coords[i + 3]));
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    private int check(int segment) {
+        if (segment < 0 || segment >= size) {
+            throw new IllegalArgumentException("No such segment: " + segment);
+        }
+        return segment;
+    }
+}
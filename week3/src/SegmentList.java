@@ -0,0 +1,57 @@
+import java.util.Arrays;
+
+/**
+ * The results of a finder: the endpoints of every segment it reports, kept
+ * as the caller's own Point references. The LineSegment array is built from
+ * them once, on the first call to segments(), and copied after that.
+ */
+class SegmentList implements SegmentSink {
+
+    private Point[] starts = new Point[16];
+    private Point[] ends = new Point[16];
+    private int size;
+    private LineSegment[] lineSegments;
+
+    @Override
+    public void accept(Point start, Point end) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+        lineSegments = null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    LineSegment[] segments() {
+        if (lineSegments == null) {
+            lineSegments = new LineSegment[size];
+            for (int i = 0; i < size; i++) {
+                lineSegments[i] = new LineSegment(starts[i], ends[i]);
+            }
+        }
+
+        LineSegment[] ls = new LineSegment[lineSegments.length];
+        System.arraycopy(lineSegments, 0, ls, 0, lineSegments.length);
+        return ls;
+    }
+
+    /**
+     * Hands every segment to the sink, in the order they were added.
+     */
+    void replay(SegmentSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Sink is null");
+        }
+
+        for (int i = 0; i < size; i++) {
+            sink.accept(starts[i], ends[i]);
+        }
+    }
+}
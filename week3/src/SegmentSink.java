@@ -0,0 +1,8 @@
+/**
+ * Receives line segments one at a time, as soon as a finder has confirmed
+ * them, so the results never have to be held in memory all at once.
+ */
+public interface SegmentSink {
+
+    void accept(Point start, Point end);
+}
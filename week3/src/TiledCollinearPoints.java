@@ -0,0 +1,467 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A collinear scan whose peak memory stays within a given budget, for point
+ * sets too large to keep every candidate segment on the heap.
+ *
+ * Workers claim blocks of origins and, for each origin, sort the later
+ * points by exact direction key with a DirectionRuns of their own. Every run
+ * of three or more becomes a record (line key, origin, last point) in a
+ * fixed-size buffer. A full buffer is radix-sorted by line key,
+ * reduced to the smallest origin per line and spilled to a temporary run
+ * file. The run files are merged at the end; the first record of each line
+ * is its smallest point, so each maximal segment is handed to the sink
+ * exactly once. Segments come out ordered by line key, not in the order of
+ * FastCollinearPoints.
+ *
+ * The budget covers the sorted coordinates, the workers' scratch arrays,
+ * their record buffers and the merge buffers; it decides how many workers
+ * run and how many records each buffers. Like the other direction-key
+ * finders it needs coordinates in 0..32767.
+ */
+public class TiledCollinearPoints {
+
+    private static final int BLOCK_SIZE = 64;               // origins claimed at a time
+    private static final int RECORD_BYTES = 32;             // key and value, plus radix sort buffers
+    private static final int MIN_RECORDS = 1024;
+    private static final int MAX_RECORDS = 1 << 24;
+    private static final int MERGE_BUFFER_BYTES = 1 << 16;
+
+    private final int[] xs;
+    private final int[] ys;
+    private final long memoryBudget;
+    private final int workers;
+    private final int recordsPerWorker;
+    private final Path tempDir;
+
+    /**
+     * Sorts and validates the points; the caller's arrays are not modified.
+     *
+     * @param memoryBudget bytes of heap the scan may use
+     */
+    public TiledCollinearPoints(int[] xs, int[] ys, long memoryBudget) {
+        this(xs, ys, memoryBudget, Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    /**
+     * @param maxWorkers upper bound on worker threads, which the budget may lower
+     * @param tempDir directory for run files, or null for the default
+     */
+    public TiledCollinearPoints(int[] xs, int[] ys, long memoryBudget, int maxWorkers, Path tempDir) {
+        if (xs == null || ys == null) {
+            throw new IllegalArgumentException("Input argument is null");
+        }
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("Coordinate arrays differ in length");
+        }
+        if (maxWorkers < 1) {
+            throw new IllegalArgumentException("maxWorkers must be positive: " + maxWorkers);
+        }
+
+        int n = xs.length;
+        long pointBytes = 8L * n;
+        long workerBytes = 8L * n + (long) RECORD_BYTES * MIN_RECORDS;
+        if (memoryBudget < pointBytes + workerBytes) {
+            throw new IllegalArgumentException("Budget of " + memoryBudget + " bytes is too small for "
+                    + n + " points; need at least " + (pointBytes + workerBytes));
+        }
+
+        this.memoryBudget = memoryBudget;
+        this.workers = (int) Math.min(maxWorkers, (memoryBudget - pointBytes) / workerBytes);
+        long bufferBytes = (memoryBudget - pointBytes) / workers - 8L * n;
+        this.recordsPerWorker = (int) Math.min(MAX_RECORDS, bufferBytes / RECORD_BYTES);
+        this.tempDir = tempDir;
+
+        this.xs = new int[n];
+        this.ys = new int[n];
+        sortPoints(xs, ys);
+    }
+
+    public int workers() {
+        return workers;
+    }
+
+    public int recordsPerWorker() {
+        return recordsPerWorker;
+    }
+
+    /**
+     * Runs the scan and hands every maximal segment of four or more points to
+     * the sink, from the calling thread.
+     */
+    public void findSegments(SegmentSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Sink is null");
+        }
+
+        List<Path> runs = new ArrayList<>();
+        try {
+            scan(runs);
+            int fanIn = (int) Math.max(2, Math.min(1024, memoryBudget / (2L * MERGE_BUFFER_BYTES)));
+            while (runs.size() > fanIn) {
+                mergeBatch(runs, fanIn);
+            }
+            merge(runs, new SegmentEmitter(sink));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (Path run : runs) {
+                try {
+                    Files.deleteIfExists(run);
+                } catch (IOException ignored) {
+                    // a leftover temp file is not worth failing the scan for
+                }
+            }
+        }
+    }
+
+    private void sortPoints(int[] inputXs, int[] inputYs) {
+        int n = inputXs.length;
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = PackedPoint.pack(inputXs[i], inputYs[i]);
+        }
+        Arrays.sort(keys);
+
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && keys[i] == keys[i - 1]) {
+                throw new IllegalArgumentException("Equal points were found");
+            }
+            xs[i] = PackedPoint.x(keys[i]);
+            ys[i] = PackedPoint.y(keys[i]);
+        }
+    }
+
+    private void scan(List<Path> runs) throws IOException {
+        AtomicInteger nextBlock = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<List<Path>>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                futures.add(pool.submit(new Worker(nextBlock)));
+            }
+
+            IOException failure = null;
+            for (Future<List<Path>> f : futures) {
+                try {
+                    runs.addAll(f.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        failure = (IOException) e.getCause();
+                    } else if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    } else {
+                        throw new IllegalStateException(e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while scanning", e);
+                }
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Merges the first fanIn runs into one, replacing them in the list.
+     */
+    private void mergeBatch(List<Path> runs, int fanIn) throws IOException {
+        List<Path> batch = new ArrayList<>(runs.subList(0, fanIn));
+        Path merged = newRunFile();
+        runs.add(merged);
+
+        try (RunWriter out = new RunWriter(merged)) {
+            merge(batch, out);
+        }
+
+        for (Path run : batch) {
+            Files.delete(run);
+        }
+        runs.subList(0, fanIn).clear();
+    }
+
+    /**
+     * Merges sorted runs, passing on the first record of each line key.
+     * Records with equal keys are ordered by origin, so that is the one
+     * from the smallest point of the line.
+     */
+    private void merge(List<Path> runs, RecordSink out) throws IOException {
+        PriorityQueue<RunReader> heap = new PriorityQueue<>();
+        try {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run);
+                if (reader.advance()) {
+                    heap.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+
+            boolean any = false;
+            long previous = 0;
+            while (!heap.isEmpty()) {
+                RunReader reader = heap.poll();
+                if (!any || reader.key != previous) {
+                    out.accept(reader.key, reader.value);
+                    previous = reader.key;
+                    any = true;
+                }
+
+                if (reader.advance()) {
+                    heap.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+        } finally {
+            for (RunReader reader : heap) {
+                reader.close();
+            }
+        }
+    }
+
+    private Path newRunFile() throws IOException {
+        Path run = tempDir == null
+                ? Files.createTempFile("collinear-run", ".bin")
+                : Files.createTempFile(tempDir, "collinear-run", ".bin");
+        run.toFile().deleteOnExit();
+        return run;
+    }
+
+    private interface RecordSink {
+        void accept(long key, long value) throws IOException;
+    }
+
+    private class SegmentEmitter implements RecordSink {
+        private final SegmentSink sink;
+
+        public SegmentEmitter(SegmentSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void accept(long key, long value) {
+            int origin = (int) (value >>> 32);
+            int last = (int) value;
+            sink.accept(new Point(xs[origin], ys[origin]), new Point(xs[last], ys[last]));
+        }
+    }
+
+    private class Worker implements Callable<List<Path>> {
+        private final AtomicInteger nextBlock;
+        private final DirectionRuns directionRuns;
+        private final long[] keys;
+        private final long[] values;
+        private final long[] auxKeys;
+        private final long[] auxValues;
+        private final List<Path> runs = new ArrayList<>();
+        private int size;
+
+        public Worker(AtomicInteger nextBlock) {
+            this.nextBlock = nextBlock;
+            directionRuns = new DirectionRuns(xs, ys);
+            keys = new long[recordsPerWorker];
+            values = new long[recordsPerWorker];
+            auxKeys = new long[recordsPerWorker];
+            auxValues = new long[recordsPerWorker];
+        }
+
+        @Override
+        public List<Path> call() throws IOException {
+            int n = xs.length;
+            int origins = Math.max(0, n - 3);
+
+            while (true) {
+                int from = nextBlock.getAndIncrement() * BLOCK_SIZE;
+                if (from >= origins) {
+                    break;
+                }
+
+                int to = Math.min(origins, from + BLOCK_SIZE);
+                for (int i = from; i < to; i++) {
+                    scanOrigin(i);
+                }
+            }
+
+            spill();
+            return runs;
+        }
+
+        private void scanOrigin(int i) throws IOException {
+            directionRuns.scan(i, 3);
+            for (int r = 0; r < directionRuns.size(); r++) {
+                if (size == keys.length) {
+                    spill();
+                }
+                keys[size] = Directions.lineKey(directionRuns.direction(r), xs[i], ys[i]);
+                values[size] = (long) i << 32 | directionRuns.last(r);
+                size++;
+            }
+        }
+
+        /**
+         * Sorts the buffered records by line key and writes the first record
+         * of each line to a new run file. Origins are scanned in increasing
+         * order within a worker and the sort is stable, so that record
+         * belongs to the smallest origin.
+         */
+        private void spill() throws IOException {
+            if (size == 0) {
+                return;
+            }
+
+            radixSort();
+            Path run = newRunFile();
+            runs.add(run);
+            try (RunWriter out = new RunWriter(run)) {
+                for (int r = 0; r < size; r++) {
+                    if (r == 0 || keys[r] != keys[r - 1]) {
+                        out.accept(keys[r], values[r]);
+                    }
+                }
+            }
+            size = 0;
+        }
+
+        /**
+         * Stable LSD radix sort of the records by key, a byte at a time,
+         * skipping bytes that are equal in every key.
+         */
+        private void radixSort() {
+            long[] srcKeys = keys;
+            long[] srcValues = values;
+            long[] dstKeys = auxKeys;
+            long[] dstValues = auxValues;
+            int[] counts = new int[257];
+
+            for (int shift = 0; shift < 64; shift += 8) {
+                Arrays.fill(counts, 0);
+                for (int r = 0; r < size; r++) {
+                    counts[(int) (srcKeys[r] >>> shift & 0xff) + 1]++;
+                }
+                if (counts[(int) (srcKeys[0] >>> shift & 0xff) + 1] == size) {
+                    continue;
+                }
+
+                for (int b = 0; b < 256; b++) {
+                    counts[b + 1] += counts[b];
+                }
+                for (int r = 0; r < size; r++) {
+                    int d = counts[(int) (srcKeys[r] >>> shift & 0xff)]++;
+                    dstKeys[d] = srcKeys[r];
+                    dstValues[d] = srcValues[r];
+                }
+
+                long[] t = srcKeys;
+                srcKeys = dstKeys;
+                dstKeys = t;
+                t = srcValues;
+                srcValues = dstValues;
+                dstValues = t;
+            }
+
+            if (srcKeys != keys) {
+                System.arraycopy(srcKeys, 0, keys, 0, size);
+                System.arraycopy(srcValues, 0, values, 0, size);
+            }
+        }
+    }
+
+    private static class RunWriter implements RecordSink, AutoCloseable {
+        private final DataOutputStream out;
+
+        public RunWriter(Path run) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), MERGE_BUFFER_BYTES));
+        }
+
+        @Override
+        public void accept(long key, long value) throws IOException {
+            out.writeLong(key);
+            out.writeLong(value);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static class RunReader implements Comparable<RunReader> {
+        private final DataInputStream in;
+        private long key;
+        private long value;
+
+        public RunReader(Path run) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), MERGE_BUFFER_BYTES));
+        }
+
+        public boolean advance() throws IOException {
+            try {
+                key = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            value = in.readLong();
+            return true;
+        }
+
+        public void close() throws IOException {
+            in.close();
+        }
+
+        @Override
+        public int compareTo(RunReader that) {
+            int cmp = Long.compare(key, that.key);
+            return cmp != 0 ? cmp : Long.compare(value, that.value);
+        }
+    }
+
+    /**
+     * java TiledCollinearPoints input.txt [budgetMB]
+     */
+    public static void main(String[] args) {
+        PointFile file = PointFile.read(args[0]);
+        long budget = (args.length > 1 ? Long.parseLong(args[1]) : 64) << 20;
+
+        int n = file.size();
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = file.x(i);
+            ys[i] = file.y(i);
+        }
+
+        TiledCollinearPoints collinear = new TiledCollinearPoints(xs, ys, budget);
+        collinear.findSegments(new SegmentSink() {
+            @Override
+            public void accept(Point start, Point end) {
+                StdOut.println(new LineSegment(start, end));
+            }
+        });
+    }
+}
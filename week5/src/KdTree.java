@@ -69,6 +69,43 @@ public class KdTree {
         }
     }
 
+    /**
+     * Hands every node to the renderer with the split line it makes inside
+     * its region of the unit square, without allocating a RectHV per node.
+     */
+    void render(KdTreeRenderer renderer) {
+        if (!isEmpty()) {
+            renderNode(root, renderer, 0.0, 0.0, 1.0, 1.0);
+        }
+    }
+
+    private void renderNode(Node node, KdTreeRenderer renderer,
+                            double xmin, double ymin, double xmax, double ymax) {
+        double x = node.point.x();
+        double y = node.point.y();
+
+        if (node.orientation == Node.VERTICAL) {
+            renderer.drawVertical(x, ymin, ymax);
+            if (node.left != null) {
+                renderNode(node.left, renderer, xmin, ymin, x, ymax);
+            }
+            if (node.right != null) {
+                renderNode(node.right, renderer, x, ymin, xmax, ymax);
+            }
+        } else {
+            renderer.drawHorizontal(y, xmin, xmax);
+            if (node.left != null) {
+                renderNode(node.left, renderer, xmin, ymin, xmax, y);
+            }
+            if (node.right != null) {
+                renderNode(node.right, renderer, xmin, y, xmax, ymax);
+            }
+        }
+
+        // points go over the split lines
+        renderer.drawPoint(x, y);
+    }
+
     public Iterable<Point2D> range(RectHV rect) {
         if (rect == null) {
             throw new IllegalArgumentException("wrong argument");
@@ -0,0 +1,131 @@
+/******************************************************************************
+ *  Compilation:  javac KdTreeRenderer.java
+ *  Execution:    java KdTreeRenderer input.txt output.png [size]
+ *  Dependencies: KdTree.java
+ *
+ *  Builds a kd-tree from the points in input.txt and writes it to a PNG the
+ *  way KdTreeVisualizer draws it: points in black, vertical splits in red,
+ *  horizontal splits in blue. It needs no display, so it also runs on a
+ *  headless machine.
+ *
+ ******************************************************************************/
+
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.Point2D;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import javax.imageio.ImageIO;
+
+public class KdTreeRenderer {
+
+    private static final int BACKGROUND = 0xffffff;
+    private static final int POINT_COLOR = 0x000000;
+    private static final int VERTICAL_COLOR = 0xff0000;
+    private static final int HORIZONTAL_COLOR = 0x0000ff;
+    private static final int POINT_RADIUS = 1;      // points are 3x3 pixels
+
+    static {
+        // must be set before anything touches AWT
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+    }
+
+    private final BufferedImage image;
+    private final int[] pixels;     // the image's own raster, row by row
+    private final int size;
+
+    public KdTreeRenderer(int size) {
+        if (size < 2) {
+            throw new IllegalArgumentException("Image size must be at least 2: " + size);
+        }
+
+        this.size = size;
+        image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        Arrays.fill(pixels, BACKGROUND);
+    }
+
+    /**
+     * Draws the whole tree, split lines first and each point over them.
+     */
+    public void draw(KdTree tree) {
+        if (tree == null) {
+            throw new IllegalArgumentException("wrong argument");
+        }
+
+        tree.render(this);
+    }
+
+    void drawPoint(double x, double y) {
+        int px = column(x);
+        int py = row(y);
+        for (int r = Math.max(0, py - POINT_RADIUS); r <= Math.min(size - 1, py + POINT_RADIUS); r++) {
+            for (int c = Math.max(0, px - POINT_RADIUS); c <= Math.min(size - 1, px + POINT_RADIUS); c++) {
+                pixels[r * size + c] = POINT_COLOR;
+            }
+        }
+    }
+
+    void drawVertical(double x, double ymin, double ymax) {
+        int c = column(x);
+        for (int r = row(ymax); r <= row(ymin); r++) {
+            pixels[r * size + c] = VERTICAL_COLOR;
+        }
+    }
+
+    void drawHorizontal(double y, double xmin, double xmax) {
+        int offset = row(y) * size;
+        Arrays.fill(pixels, offset + column(xmin), offset + column(xmax) + 1, HORIZONTAL_COLOR);
+    }
+
+    public void writePng(String path) {
+        try {
+            if (!ImageIO.write(image, "png", new File(path))) {
+                throw new IllegalStateException("No PNG writer available");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int column(double x) {
+        return toPixel(x);
+    }
+
+    private int row(double y) {
+        return size - 1 - toPixel(y);
+    }
+
+    private int toPixel(double coordinate) {
+        int p = (int) (coordinate * (size - 1) + 0.5);
+        return Math.max(0, Math.min(size - 1, p));
+    }
+
+    public static void main(String[] args) {
+        In in = new In(args[0]);
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+
+        long start = System.nanoTime();
+        KdTree kdtree = new KdTree();
+        while (!in.isEmpty()) {
+            double x = in.readDouble();
+            double y = in.readDouble();
+            kdtree.insert(new Point2D(x, y));
+        }
+        long built = System.nanoTime();
+
+        KdTreeRenderer renderer = new KdTreeRenderer(size);
+        renderer.draw(kdtree);
+        renderer.writePng(args[1]);
+
+        StdOut.printf("build %.1f ms, render %.1f ms%n",
+                (built - start) / 1e6, (System.nanoTime() - built) / 1e6);
+    }
+}